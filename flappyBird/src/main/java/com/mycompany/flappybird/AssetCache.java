@@ -0,0 +1,198 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Loads every image once and hands out shared references. Images are
+ * converted to the screen's compatible format so drawing them is a plain
+ * accelerated blit instead of a per-pixel format conversion, and can be
+ * requested pre-scaled to their on-screen size so the per-frame path never
+ * scales. Fonts are cached the same way.
+ */
+public final class AssetCache {
+    private static final Map<String, BufferedImage> images = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage> scaledImages = new ConcurrentHashMap<>();
+    private static final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+    private static final Map<String, Font> fonts = new ConcurrentHashMap<>();
+    private static final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+    private AssetCache() {}
+
+    /**
+     * Returns the image at the given classpath location, loading it on first
+     * use. Returns null if the image does not exist or cannot be read.
+     */
+    public static BufferedImage getImage(String path) {
+        BufferedImage image = images.get(path);
+        if (image != null || missing.contains(path)) {
+            return image;
+        }
+        return images.computeIfAbsent(path, AssetCache::load);
+    }
+
+    private static BufferedImage load(String path) {
+        long start = System.nanoTime();
+        try {
+            URL resource = AssetCache.class.getResource(path);
+            if (resource == null) {
+                System.err.println("Image not found: " + path);
+                missing.add(path);
+                return null;
+            }
+            BufferedImage image = toCompatibleImage(ImageIO.read(resource));
+            loadTimes.put(path, System.nanoTime() - start);
+            return image;
+        } catch (IOException e) {
+            System.err.println("Error loading image: " + path);
+            e.printStackTrace();
+            missing.add(path);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the TrueType font at the given classpath location (at size 1),
+     * loading it on first use. Returns null if it cannot be loaded; callers
+     * pick their own fallback.
+     */
+    public static Font getFont(String path) {
+        Font font = fonts.get(path);
+        if (font != null || missing.contains(path)) {
+            return font;
+        }
+        return fonts.computeIfAbsent(path, AssetCache::loadFont);
+    }
+
+    private static Font loadFont(String path) {
+        long start = System.nanoTime();
+        URL resource = AssetCache.class.getResource(path);
+        if (resource == null) {
+            System.err.println("Font not found: " + path);
+            missing.add(path);
+            return null;
+        }
+        try (InputStream in = resource.openStream()) {
+            Font font = Font.createFont(Font.TRUETYPE_FONT, in);
+            loadTimes.put(path, System.nanoTime() - start);
+            return font;
+        } catch (IOException | FontFormatException e) {
+            System.err.println("Error loading font: " + path);
+            missing.add(path);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the image at the given location scaled to exactly width x
+     * height. Each size is scaled once and then shared.
+     */
+    public static BufferedImage getScaledImage(String path, int width, int height) {
+        BufferedImage source = getImage(path);
+        if (source == null || (source.getWidth() == width && source.getHeight() == height)) {
+            return source;
+        }
+        return scaledImages.computeIfAbsent(path + "@" + width + "x" + height,
+                key -> scale(source, width, height));
+    }
+
+    /**
+     * Returns a compatible copy of the image scaled to width x height. Uses
+     * the same default interpolation drawImage applied when scaling per frame,
+     * so sprites look the same as before.
+     */
+    public static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage scaled = createCompatibleImage(width, height, source.getColorModel().getTransparency());
+        Graphics2D g2d = scaled.createGraphics();
+        g2d.drawImage(source, 0, 0, width, height, null);
+        g2d.dispose();
+        return scaled;
+    }
+
+    /**
+     * Creates an empty image in the default screen's pixel layout, or plain
+     * ARGB when there is no screen.
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return config.createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * Copies the image into the pixel layout of the default screen (or plain
+     * ARGB when there is no screen), keeping its transparency.
+     */
+    public static BufferedImage toCompatibleImage(BufferedImage source) {
+        int transparency = source.getColorModel().getTransparency();
+        if (GraphicsEnvironment.isHeadless()) {
+            if (source.getType() == BufferedImage.TYPE_INT_ARGB) {
+                return source;
+            }
+        } else {
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            if (source.getColorModel().equals(config.getColorModel(transparency))) {
+                return source;
+            }
+        }
+        BufferedImage compatible = createCompatibleImage(source.getWidth(), source.getHeight(), transparency);
+        Graphics2D g2d = compatible.createGraphics();
+        g2d.drawImage(source, 0, 0, null);
+        g2d.dispose();
+        return compatible;
+    }
+
+    /** Approximate heap used by the image's pixels. */
+    static long estimateBytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * image.getColorModel().getPixelSize() / 8;
+    }
+
+    /**
+     * Prints load time and memory footprint for every cached image.
+     */
+    public static void printReport() {
+        long totalBytes = 0;
+        long totalNanos = 0;
+        System.out.println("Asset cache:");
+        for (Map.Entry<String, BufferedImage> entry : new TreeMap<>(images).entrySet()) {
+            BufferedImage image = entry.getValue();
+            long bytes = estimateBytes(image);
+            long nanos = loadTimes.getOrDefault(entry.getKey(), 0L);
+            totalBytes += bytes;
+            totalNanos += nanos;
+            System.out.printf("  %-36s %4dx%-4d %8.2f ms %8d KB%n", entry.getKey(),
+                    image.getWidth(), image.getHeight(), nanos / 1_000_000.0, bytes / 1024);
+        }
+        long scaledBytes = 0;
+        for (BufferedImage image : scaledImages.values()) {
+            scaledBytes += estimateBytes(image);
+        }
+        System.out.printf("  %d images, %.2f ms, %d KB%n", images.size(), totalNanos / 1_000_000.0, totalBytes / 1024);
+        System.out.printf("  %d pre-scaled copies, %d KB%n", scaledImages.size(), scaledBytes / 1024);
+        for (String path : new TreeMap<>(fonts).keySet()) {
+            System.out.printf("  %-36s %9s %8.2f ms%n", path, "font",
+                    loadTimes.getOrDefault(path, 0L) / 1_000_000.0);
+        }
+    }
+}
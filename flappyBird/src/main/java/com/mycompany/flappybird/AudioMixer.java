@@ -0,0 +1,382 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Software mixer feeding one SourceDataLine from its own thread. Sounds are
+ * decoded once to 16-bit stereo PCM at the mixer rate; playing one starts a
+ * voice, so overlapping plays of the same sound layer instead of cutting each
+ * other off.
+ *
+ * Callers never block and never touch the audio line: play/loop/stop post a
+ * command into a bounded lock-free queue that the mixer thread drains. Plays
+ * of a sound already queued for the same game tick are coalesced into one, and
+ * commands arriving while the queue is full are dropped; both are counted.
+ *
+ * The line buffer size sets the latency and defaults to 20 ms; change it with
+ * -Dflappybird.audioBufferMillis. Play latency is measured from the play()
+ * call to the first sample of the voice being written to the line.
+ */
+public class AudioMixer {
+    public static final float SAMPLE_RATE = 44100f;
+    private static final int CHANNELS = 2;
+    private static final int FRAME_BYTES = CHANNELS * 2;
+    private static final int DEFAULT_BUFFER_MILLIS = 20;
+    private static final int MAX_VOICES = 16;
+    private static final int QUEUE_CAPACITY = 64; // power of two
+
+    private static final int PLAY = 0;
+    private static final int LOOP = 1;
+    private static final int STOP = 2;
+
+    /** A sound decoded to interleaved stereo samples at SAMPLE_RATE. */
+    public static final class Sound {
+        private final String name;
+        private final short[] samples;
+        // Tick of the last play of this sound queued, for coalescing
+        private final AtomicLong lastTick = new AtomicLong(Long.MIN_VALUE);
+
+        private Sound(String name, short[] samples) {
+            this.name = name;
+            this.samples = samples;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getFrameCount() {
+            return samples.length / CHANNELS;
+        }
+    }
+
+    private final AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+    private final int chunkFrames;
+    private final int bufferBytes;
+    private final LatencyHistogram playLatency = new LatencyHistogram("audio play latency");
+    private final CommandQueue commands = new CommandQueue(QUEUE_CAPACITY);
+    private final LongAdder droppedCommands = new LongAdder();
+    private final LongAdder coalescedPlays = new LongAdder();
+    private volatile Thread thread;
+
+    // Voices, owned by the mixer thread
+    private final Sound[] voiceSound = new Sound[MAX_VOICES];
+    private final int[] voicePosition = new int[MAX_VOICES];
+    private final boolean[] voiceLooping = new boolean[MAX_VOICES];
+    // Time of the play request until the first sample is written, then 0
+    private final long[] voiceRequested = new long[MAX_VOICES];
+
+    public AudioMixer() {
+        this(Integer.getInteger("flappybird.audioBufferMillis", DEFAULT_BUFFER_MILLIS));
+    }
+
+    public AudioMixer(int bufferMillis) {
+        int bufferFrames = Math.max(64, (int) (SAMPLE_RATE * bufferMillis / 1000));
+        // Write a quarter of the buffer at a time so the line never runs dry
+        this.chunkFrames = Math.max(16, bufferFrames / 4);
+        this.bufferBytes = bufferFrames * FRAME_BYTES;
+    }
+
+    /**
+     * Reads and decodes a sound file (any format AudioSystem can read) to the
+     * mixer's format.
+     */
+    public static Sound decode(String name, URL url) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(url)) {
+            AudioFormat source = in.getFormat();
+            int channels = source.getChannels();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, source.getSampleRate(), 16,
+                    channels, channels * 2, source.getSampleRate(), false);
+            byte[] bytes;
+            try (AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, in)) {
+                bytes = decoded.readAllBytes();
+            }
+
+            int sourceFrames = bytes.length / (channels * 2);
+            double step = source.getSampleRate() / SAMPLE_RATE;
+            int frames = (int) (sourceFrames / step);
+            short[] samples = new short[frames * CHANNELS];
+            for (int i = 0; i < frames; i++) {
+                // Nearest source frame; the effects are all recorded at 44.1 kHz anyway
+                int frame = Math.min(sourceFrames - 1, (int) (i * step));
+                int offset = frame * channels * 2;
+                short left = (short) ((bytes[offset] & 0xff) | (bytes[offset + 1] << 8));
+                short right = left;
+                if (channels > 1) {
+                    right = (short) ((bytes[offset + 2] & 0xff) | (bytes[offset + 3] << 8));
+                }
+                samples[i * 2] = left;
+                samples[i * 2 + 1] = right;
+            }
+            return new Sound(name, samples);
+        }
+    }
+
+    /**
+     * Opens the audio line and starts the mixer thread. Returns false (and
+     * the mixer stays silent) when no line is available, e.g. when headless.
+     */
+    public synchronized boolean start() {
+        if (thread != null) {
+            return true;
+        }
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, bufferBytes);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("No audio line available, sound is disabled: " + e.getMessage());
+            return false;
+        }
+        Thread mixerThread = new Thread(() -> mix(line), "audio-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+        thread = mixerThread;
+        mixerThread.start();
+        return true;
+    }
+
+    public synchronized void stop() {
+        thread = null;
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Plays the sound once. tick is the index of the game tick asking for it
+     * (GameLoop.currentTick()); plays for a tick at or before the last one
+     * queued are merged into that play. Ticks caught up back-to-back after a
+     * stall still get one play each.
+     */
+    public void play(Sound sound, long tick) {
+        if (thread == null) {
+            return;
+        }
+        long last;
+        do {
+            last = sound.lastTick.get();
+            if (tick <= last) {
+                // Already queued for this tick
+                coalescedPlays.increment();
+                return;
+            }
+        } while (!sound.lastTick.compareAndSet(last, tick));
+        enqueue(PLAY, sound, System.nanoTime());
+    }
+
+    /** Plays the sound over and over until stop(sound). */
+    public void loop(Sound sound) {
+        enqueue(LOOP, sound, System.nanoTime());
+    }
+
+    /** Silences every voice playing the sound. */
+    public void stop(Sound sound) {
+        enqueue(STOP, sound, System.nanoTime());
+    }
+
+    private void enqueue(int command, Sound sound, long time) {
+        if (thread != null && !commands.offer(command, sound, time)) {
+            droppedCommands.increment();
+        }
+    }
+
+    public LatencyHistogram getPlayLatency() {
+        return playLatency;
+    }
+
+    public long getDroppedCommands() {
+        return droppedCommands.sum();
+    }
+
+    public long getCoalescedPlays() {
+        return coalescedPlays.sum();
+    }
+
+    private void mix(SourceDataLine line) {
+        Thread self = Thread.currentThread();
+        int[] accumulator = new int[chunkFrames * CHANNELS];
+        byte[] output = new byte[chunkFrames * FRAME_BYTES];
+        line.start();
+        try {
+            while (thread == self) {
+                takePending();
+                mixChunk(accumulator, output);
+                // Blocks while the line buffer is full, which paces the loop
+                line.write(output, 0, output.length);
+                recordStartedVoices();
+            }
+        } finally {
+            line.stop();
+            line.flush();
+            line.close();
+        }
+    }
+
+    private void takePending() {
+        while (commands.peek()) {
+            Sound sound = commands.sound();
+            if (commands.command() == STOP) {
+                for (int v = 0; v < MAX_VOICES; v++) {
+                    if (voiceSound[v] == sound) {
+                        voiceSound[v] = null;
+                    }
+                }
+            } else {
+                startVoice(sound, commands.command() == LOOP, commands.time());
+            }
+            commands.remove();
+        }
+    }
+
+    private void startVoice(Sound sound, boolean looping, long requested) {
+        // Take a free voice, or steal the one closest to finishing
+        int voice = 0;
+        int bestRemaining = Integer.MAX_VALUE;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSound[v] == null) {
+                voice = v;
+                break;
+            }
+            int remaining = voiceLooping[v] ? Integer.MAX_VALUE - 1 : voiceSound[v].samples.length - voicePosition[v];
+            if (remaining < bestRemaining) {
+                bestRemaining = remaining;
+                voice = v;
+            }
+        }
+        voiceSound[voice] = sound;
+        voicePosition[voice] = 0;
+        voiceLooping[voice] = looping;
+        voiceRequested[voice] = requested;
+    }
+
+    private void mixChunk(int[] accumulator, byte[] output) {
+        Arrays.fill(accumulator, 0);
+        for (int v = 0; v < MAX_VOICES; v++) {
+            Sound sound = voiceSound[v];
+            if (sound == null) {
+                continue;
+            }
+            short[] samples = sound.samples;
+            int position = voicePosition[v];
+            for (int i = 0; i < accumulator.length; i++) {
+                if (position == samples.length) {
+                    if (!voiceLooping[v]) {
+                        voiceSound[v] = null;
+                        break;
+                    }
+                    position = 0;
+                }
+                accumulator[i] += samples[position++];
+            }
+            voicePosition[v] = position;
+        }
+        for (int i = 0; i < accumulator.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, accumulator[i]));
+            output[i * 2] = (byte) sample;
+            output[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private void recordStartedVoices() {
+        long now = System.nanoTime();
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceRequested[v] != 0) {
+                playLatency.record(now - voiceRequested[v]);
+                voiceRequested[v] = 0;
+            }
+        }
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring of commands. Producers
+     * claim a slot with a CAS on the tail and publish it by advancing the
+     * slot's sequence number; the mixer thread reads slots in order. Nothing
+     * is allocated and nobody waits on a lock.
+     */
+    private static final class CommandQueue {
+        private final int mask;
+        private final AtomicLongArray sequence;
+        private final AtomicLong tail = new AtomicLong();
+        private final int[] commandAt;
+        private final Sound[] soundAt;
+        private final long[] timeAt;
+        private long head; // consumer only
+
+        CommandQueue(int capacity) {
+            mask = capacity - 1;
+            sequence = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequence.set(i, i);
+            }
+            commandAt = new int[capacity];
+            soundAt = new Sound[capacity];
+            timeAt = new long[capacity];
+        }
+
+        /** Returns false when the queue is full. */
+        boolean offer(int command, Sound sound, long time) {
+            long position = tail.get();
+            while (true) {
+                int slot = (int) position & mask;
+                long available = sequence.getAcquire(slot) - position;
+                if (available == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        commandAt[slot] = command;
+                        soundAt[slot] = sound;
+                        timeAt[slot] = time;
+                        sequence.setRelease(slot, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (available < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        /** Whether the head slot holds a published command. */
+        boolean peek() {
+            return sequence.getAcquire((int) head & mask) == head + 1;
+        }
+
+        int command() {
+            return commandAt[(int) head & mask];
+        }
+
+        Sound sound() {
+            return soundAt[(int) head & mask];
+        }
+
+        long time() {
+            return timeAt[(int) head & mask];
+        }
+
+        void remove() {
+            int slot = (int) head & mask;
+            soundAt[slot] = null;
+            sequence.setRelease(slot, head + mask + 1);
+            head++;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A tiny neural network that decides every tick whether the bird should
+ * flap. Its inputs are the bird's height and velocity and the position of
+ * the next two gaps, normalized with the Bird and Pipe constants. The
+ * weights are evolved by Trainer.
+ *
+ * An instance keeps scratch buffers, so use it from one thread at a time.
+ */
+public class Autopilot {
+    private static final String FILE_HEADER = "flappybird-autopilot 1";
+    private static final int INPUTS = 5;
+    private static final int HIDDEN = 6;
+    // Input and bias weights into each hidden neuron, then hidden and bias into the output
+    static final int WEIGHT_COUNT = HIDDEN * (INPUTS + 1) + HIDDEN + 1;
+
+    private final double[] weights;
+    private final double[] input = new double[INPUTS];
+
+    private Autopilot(double[] weights) {
+        this.weights = weights;
+    }
+
+    public static Autopilot random(Random rand) {
+        double[] weights = new double[WEIGHT_COUNT];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = rand.nextGaussian();
+        }
+        return new Autopilot(weights);
+    }
+
+    /**
+     * Returns a copy where each weight is nudged by Gaussian noise with the
+     * given probability.
+     */
+    public Autopilot mutate(Random rand, double rate, double strength) {
+        double[] child = weights.clone();
+        for (int i = 0; i < child.length; i++) {
+            if (rand.nextDouble() < rate) {
+                child[i] += rand.nextGaussian() * strength;
+            }
+        }
+        return new Autopilot(child);
+    }
+
+    /**
+     * Mixes two parents by taking each weight from one of them at random.
+     */
+    public Autopilot crossover(Autopilot other, Random rand) {
+        double[] child = new double[WEIGHT_COUNT];
+        for (int i = 0; i < child.length; i++) {
+            child[i] = rand.nextBoolean() ? weights[i] : other.weights[i];
+        }
+        return new Autopilot(child);
+    }
+
+    public boolean shouldFlap(GameWorld world) {
+        Bird bird = world.getBird();
+        PipeField pipes = world.getPipes();
+        double birdCenter = bird.getY() + bird.getHeight() / 2.0;
+
+        int next = pipes.nextPipe(bird.getX());
+        double nextDistance = 1;
+        double nextGap = 0;
+        double afterGap = 0;
+        if (next >= 0) {
+            nextDistance = (pipes.getX(next) - bird.getX()) / pipes.getSpacing();
+            nextGap = (pipes.getTopPipeHeight(next) + Pipe.GAP / 2.0 - birdCenter) / Pipe.GAP;
+            if (next + 1 < pipes.size()) {
+                afterGap = (pipes.getTopPipeHeight(next + 1) + Pipe.GAP / 2.0 - birdCenter) / Pipe.GAP;
+            }
+        }
+        input[0] = bird.getY() / GameWorld.HEIGHT;
+        input[1] = bird.getVelocityY() / Bird.TERMINAL_VELOCITY;
+        input[2] = nextDistance;
+        input[3] = nextGap;
+        input[4] = afterGap;
+        return evaluate() > 0;
+    }
+
+    private double evaluate() {
+        int w = 0;
+        double output = 0;
+        int outputWeights = HIDDEN * (INPUTS + 1);
+        for (int h = 0; h < HIDDEN; h++) {
+            double sum = weights[w++]; // bias
+            for (int i = 0; i < INPUTS; i++) {
+                sum += weights[w++] * input[i];
+            }
+            output += weights[outputWeights + h] * Math.tanh(sum);
+        }
+        return output + weights[outputWeights + HIDDEN];
+    }
+
+    public void save(Path file) throws IOException {
+        StringBuilder text = new StringBuilder(FILE_HEADER).append('\n');
+        for (double weight : weights) {
+            text.append(weight).append('\n');
+        }
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+
+    public static Autopilot load(Path file) throws IOException {
+        String[] lines = Files.readString(file, StandardCharsets.UTF_8).trim().split("\\s*\\n\\s*");
+        if (lines.length != WEIGHT_COUNT + 1 || !lines[0].equals(FILE_HEADER)) {
+            throw new IOException("Not an autopilot file: " + file);
+        }
+        double[] weights = new double[WEIGHT_COUNT];
+        try {
+            for (int i = 0; i < WEIGHT_COUNT; i++) {
+                weights[i] = Double.parseDouble(lines[i + 1]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad weight in " + file, e);
+        }
+        return new Autopilot(weights);
+    }
+}
@@ -5,39 +5,144 @@ package com.mycompany.flappybird;
  * @author tayog
  */
 
+import java.awt.AlphaComposite;
 import java.awt.Graphics;
-import java.awt.Image;
-import java.io.IOException;
-import java.net.URL;
-import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Draws the sky. The day and night images are scaled once per panel size
+ * into compatible images, which the pipeline keeps accelerated, and shared
+ * between panels; sizes that have not been drawn for a while are evicted.
+ *
+ * Switching to night fades over FADE_STEPS ticks. Each step is blended into
+ * one reusable image when it is first drawn, so frames in between are a
+ * single opaque blit like any other frame.
+ */
 public class Background {
-    private Image dayBackground;
-    private Image nightBackground;
-    private boolean nightMode = false;
+    private static final String DAY_PATH = "/assets/images/background.png";
+    private static final String NIGHT_PATH = "/assets/images/backgroundNight.png";
+    public static final int FADE_STEPS = 16; // about half a second of ticks
+    // Day and night at the two most recent sizes, e.g. before and after a resize
+    private static final int MAX_CACHED_IMAGES = 4;
+
+    private static final Map<String, BufferedImage> scaledCache =
+            new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                    return size() > MAX_CACHED_IMAGES;
+                }
+            };
+
+    // Backgrounds scaled to the last size we were asked to draw
+    private BufferedImage dayBackground;
+    private BufferedImage nightBackground;
+    private int scaledWidth = -1;
+    private int scaledHeight = -1;
+
+    // 0 is day, FADE_STEPS is night
+    private int fadeStep = 0;
+    private int fadeTarget = 0;
+    private BufferedImage blended;
+    private int blendedStep = -1;
 
     public Background() {
-        try {
-            // Load day background
-            URL dayResource = getClass().getResource("/assets/background.png");
-            dayBackground = ImageIO.read(dayResource);
-            
-            // Load night background
-            URL nightResource = getClass().getResource("/assets/backgroundNight.png");
-            nightBackground = ImageIO.read(nightResource);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-    
+        rescale(GameWorld.WIDTH, GameWorld.HEIGHT);
+    }
+
+    private static BufferedImage getScaled(String path, int width, int height) {
+        BufferedImage source = AssetCache.getImage(path);
+        if (source == null) {
+            return null;
+        }
+        String key = path + "@" + width + "x" + height;
+        synchronized (scaledCache) {
+            BufferedImage scaled = scaledCache.get(key);
+            if (scaled == null) {
+                scaled = AssetCache.scale(source, width, height);
+                scaledCache.put(key, scaled);
+            }
+            return scaled;
+        }
+    }
+
+    private void rescale(int width, int height) {
+        dayBackground = getScaled(DAY_PATH, width, height);
+        nightBackground = getScaled(NIGHT_PATH, width, height);
+        scaledWidth = width;
+        scaledHeight = height;
+        blended = null;
+        blendedStep = -1;
+    }
+
+    /** Switches straight to day or night, e.g. on restart or after seeking. */
     public void setNightMode(boolean nightMode) {
-        this.nightMode = nightMode;
+        fadeTarget = nightMode ? FADE_STEPS : 0;
+        fadeStep = fadeTarget;
+    }
+
+    /** Starts fading towards day or night; update() advances the fade. */
+    public void fadeToNightMode(boolean nightMode) {
+        fadeTarget = nightMode ? FADE_STEPS : 0;
+    }
+
+    /** Advances a running fade by one step; call once per tick. */
+    public void update() {
+        if (fadeStep < fadeTarget) {
+            fadeStep++;
+        } else if (fadeStep > fadeTarget) {
+            fadeStep--;
+        }
+    }
+
+    /** How far towards night the sky is, from 0 to FADE_STEPS. */
+    public int getFadeStep() {
+        return fadeStep;
     }
 
     public void draw(Graphics g, int width, int height) {
-        Image currentBackground = nightMode ? nightBackground : dayBackground;
+        draw(g, width, height, fadeStep);
+    }
+
+    /**
+     * Draws the sky at the given fade step. Only this touches the scaled and
+     * blended images, so one thread can draw while another runs update().
+     */
+    public void draw(Graphics g, int width, int height, int fadeStep) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (width != scaledWidth || height != scaledHeight) {
+            rescale(width, height);
+        }
+        BufferedImage currentBackground;
+        if (fadeStep == 0 || nightBackground == null) {
+            currentBackground = dayBackground;
+        } else if (fadeStep == FADE_STEPS || dayBackground == null) {
+            currentBackground = nightBackground;
+        } else {
+            currentBackground = blend(width, height, fadeStep);
+        }
         if (currentBackground != null) {
-            g.drawImage(currentBackground, 0, 0, width, height, null);
+            g.drawImage(currentBackground, 0, 0, null);
+        }
+    }
+
+    private BufferedImage blend(int width, int height, int fadeStep) {
+        if (blendedStep != fadeStep) {
+            if (blended == null) {
+                blended = AssetCache.createCompatibleImage(width, height, Transparency.OPAQUE);
+            }
+            Graphics2D g2d = blended.createGraphics();
+            g2d.drawImage(dayBackground, 0, 0, null);
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) fadeStep / FADE_STEPS));
+            g2d.drawImage(nightBackground, 0, 0, null);
+            g2d.dispose();
+            blendedStep = fadeStep;
         }
+        return blended;
     }
-}
\ No newline at end of file
+}
@@ -8,19 +8,16 @@ package com.mycompany.flappybird;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.geom.AffineTransform;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.net.URL;
-
-import javax.imageio.ImageIO;
 
 public class Bird {
-    private static final int BIRD_WIDTH = 50;
-    private static final int BIRD_HEIGHT = 35;
-    private static final double GRAVITY = 0.5;
-    private static final double JUMP_STRENGTH = -10;
-    private static final double TERMINAL_VELOCITY = 12;
+    static final int BIRD_WIDTH = 50;
+    static final int BIRD_HEIGHT = 35;
+    static final double GRAVITY = 0.5;
+    static final double JUMP_STRENGTH = -10;
+    static final double TERMINAL_VELOCITY = 12;
     
     // Animation constants - corrected for 276x64 sprite sheet
     private static final int SPRITE_WIDTH = 92;   // Width of each sprite frame (276/3 = 92)
@@ -28,47 +25,132 @@ public class Bird {
     private static final int FRAME_COUNT = 3;     // Number of animation frames
     private static final int ANIMATION_SPEED = 8; // Frames to wait between sprite changes (faster animation)
     
+    // Tilt constants - the tilt is velocityY * 3 degrees, clamped to +-30
+    private static final double MAX_TILT = 30;
+    private static final double TILT_PER_VELOCITY = 3;
+    // Degrees between pre-rotated frames. Velocity changes in steps of 0.5,
+    // so the default 1.5 degrees gives every reachable tilt its own frame.
+    private static final double DEFAULT_TILT_STEP = 1.5;
+    private static final double TILT_STEP = tiltStep();
+    // Rotated frames are square and large enough for the bird at any angle
+    private static final int ROTATED_SIZE = (int)Math.ceil(Math.hypot(BIRD_WIDTH, BIRD_HEIGHT));
+    // Hitbox is slightly smaller than the sprite for more forgiving collisions
+    private static final int HITBOX_MARGIN = 3;
+    
     private double x;
     private double y;
+    private double previousX;
+    private double previousY;
     private double velocityY;
-    private BufferedImage spriteSheet;
-    private BufferedImage[] birdFrames;
+    // Sprites are shared by every bird and only loaded on first draw,
+    // so headless simulations never touch ImageIO
+    private static BufferedImage[] birdFrames;
+    private static BufferedImage[][] rotatedFrames; // [frame][tilt bucket]
+    private static CollisionMask[][] rotatedMasks;  // alpha masks of rotatedFrames
+    private static volatile boolean spritesLoaded = false;
     private int currentFrame = 0;
     private int animationCounter = 0;
     private int screenHeight;
     
+    /**
+     * Reads -Dflappybird.birdTiltStep, falling back to the default for
+     * anything that is not a positive number of degrees.
+     */
+    private static double tiltStep() {
+        String value = System.getProperty("flappybird.birdTiltStep");
+        if (value == null) {
+            return DEFAULT_TILT_STEP;
+        }
+        try {
+            double step = Double.parseDouble(value);
+            if (step > 0 && step <= 2 * MAX_TILT) {
+                return step;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("flappybird.birdTiltStep must be between 0 (exclusive) and " + 2 * MAX_TILT
+                + " degrees, got " + value + "; using " + DEFAULT_TILT_STEP);
+        return DEFAULT_TILT_STEP;
+    }
+    
     public Bird(int screenWidth, int screenHeight) {
         this.screenHeight = screenHeight;
         x = screenWidth / 4.0; // Position bird 1/4 from left
         y = screenHeight / 2.0; // Start in middle of screen
         velocityY = 0;
-        
-        loadSpriteSheet();
+        savePreviousPosition();
     }
     
-    private void loadSpriteSheet() {
-        try {
-            URL resource = getClass().getResource("/assets/images/bird.png");
-            if (resource != null) {
-                spriteSheet = ImageIO.read(resource);
-                
-                // Extract individual frames from sprite sheet (horizontal layout)
-                birdFrames = new BufferedImage[FRAME_COUNT];
-                for (int i = 0; i < FRAME_COUNT; i++) {
-                    // Make sure we don't go out of bounds
-                    int frameX = i * SPRITE_WIDTH;
-                    if (frameX + SPRITE_WIDTH <= spriteSheet.getWidth()) {
-                        birdFrames[i] = spriteSheet.getSubimage(
-                            frameX, 0, 
-                            SPRITE_WIDTH, SPRITE_HEIGHT
-                        );
+    static synchronized void loadSpriteSheet() {
+        if (spritesLoaded) {
+            return;
+        }
+        BufferedImage spriteSheet = AssetCache.getImage("/assets/images/bird.png");
+        if (spriteSheet != null) {
+            // Extract individual frames from sprite sheet (horizontal layout)
+            birdFrames = new BufferedImage[FRAME_COUNT];
+            for (int i = 0; i < FRAME_COUNT; i++) {
+                // Make sure we don't go out of bounds
+                int frameX = i * SPRITE_WIDTH;
+                if (frameX + SPRITE_WIDTH <= spriteSheet.getWidth()) {
+                    // Pre-scale to on-screen size so drawing is a 1:1 blit
+                    birdFrames[i] = AssetCache.scale(spriteSheet.getSubimage(
+                        frameX, 0, 
+                        SPRITE_WIDTH, SPRITE_HEIGHT
+                    ), BIRD_WIDTH, BIRD_HEIGHT);
+                }
+            }
+            rotatedFrames = createRotatedFrames(birdFrames);
+            rotatedMasks = new CollisionMask[rotatedFrames.length][];
+            for (int i = 0; i < rotatedFrames.length; i++) {
+                rotatedMasks[i] = new CollisionMask[rotatedFrames[i].length];
+                for (int b = 0; b < rotatedFrames[i].length; b++) {
+                    if (rotatedFrames[i][b] != null) {
+                        rotatedMasks[i][b] = CollisionMask.fromAlpha(rotatedFrames[i][b]);
                     }
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Could not load bird sprite: " + e.getMessage());
-            e.printStackTrace();
+        } else {
+            System.err.println("Could not load bird sprite");
         }
+        spritesLoaded = true;
+    }
+    
+    /**
+     * Renders every animation frame at every tilt bucket once, so drawing the
+     * bird is a single untransformed blit.
+     */
+    private static BufferedImage[][] createRotatedFrames(BufferedImage[] frames) {
+        int buckets = (int)Math.round(2 * MAX_TILT / TILT_STEP) + 1;
+        BufferedImage[][] rotated = new BufferedImage[frames.length][buckets];
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] == null) {
+                continue;
+            }
+            for (int b = 0; b < buckets; b++) {
+                double angle = Math.toRadians(-MAX_TILT + b * TILT_STEP);
+                BufferedImage image = AssetCache.createCompatibleImage(ROTATED_SIZE, ROTATED_SIZE, Transparency.TRANSLUCENT);
+                Graphics2D g2d = image.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                // Rotate around the same pivot the bird always used
+                g2d.rotate(angle, ROTATED_SIZE / 2, ROTATED_SIZE / 2);
+                g2d.drawImage(frames[i], ROTATED_SIZE / 2 - BIRD_WIDTH/2, ROTATED_SIZE / 2 - BIRD_HEIGHT/2, null);
+                g2d.dispose();
+                rotated[i][b] = image;
+            }
+        }
+        return rotated;
+    }
+    
+    /**
+     * Remembers the current position as the start point for render
+     * interpolation. Called at the start of every simulation tick.
+     */
+    public void savePreviousPosition() {
+        previousX = x;
+        previousY = y;
     }
     
     public void update() {
@@ -103,28 +185,25 @@ public class Bird {
     
     public void jump() {
         velocityY = JUMP_STRENGTH;
-        SoundManager.playSound("flap");
         // Don't reset animation frame when jumping to keep smooth animation
     }
     
     public void draw(Graphics g) {
-        if (birdFrames != null && currentFrame < birdFrames.length && birdFrames[currentFrame] != null) {
-            Graphics2D g2d = (Graphics2D) g;
-            
-            // Save the original transform
-            AffineTransform originalTransform = g2d.getTransform();
-            
-            // Calculate rotation angle based on velocity for more realistic movement
-            double angle = Math.toRadians(Math.max(-30, Math.min(30, velocityY * 3)));
-            
-            // Rotate around the center of the bird
-            g2d.rotate(angle, x + BIRD_WIDTH/2, y + BIRD_HEIGHT/2);
-            
-            // Draw the bird
-            g2d.drawImage(birdFrames[currentFrame], (int)x, (int)y, BIRD_WIDTH, BIRD_HEIGHT, null);
-            
-            // Restore the original transform
-            g2d.setTransform(originalTransform);
+        draw(g, 1.0);
+    }
+    
+    /**
+     * Draws the bird interpolated between its previous and current tick
+     * position; alpha 0 is the previous position and 1 the current one.
+     */
+    public void draw(Graphics g, double alpha) {
+        double x = previousX + (this.x - previousX) * alpha;
+        double y = previousY + (this.y - previousY) * alpha;
+        if (!spritesLoaded) {
+            loadSpriteSheet();
+        }
+        if (rotatedFrames != null && currentFrame < rotatedFrames.length && rotatedFrames[currentFrame][0] != null) {
+            g.drawImage(rotatedFrames[currentFrame][tiltBucket()], getDrawX(alpha), getDrawY(alpha), null);
         } else {
             // Fallback drawing if sprites fail to load
             g.setColor(java.awt.Color.YELLOW);
@@ -134,11 +213,73 @@ public class Bird {
         }
     }
     
+    // Top-left corner of the square draw(g, alpha) covers; the rotation
+    // pivot lines up with the center of the bird
+
+    public int getDrawX(double alpha) {
+        return (int)(previousX + (x - previousX) * alpha) + BIRD_WIDTH/2 - ROTATED_SIZE / 2;
+    }
+
+    public int getDrawY(double alpha) {
+        return (int)(previousY + (y - previousY) * alpha) + BIRD_HEIGHT/2 - ROTATED_SIZE / 2;
+    }
+
+    /** Side of the square draw(g, alpha) covers. */
+    public static int getDrawSize() {
+        return ROTATED_SIZE;
+    }
+    
+    /**
+     * Index of the pre-rotated frame closest to the tilt for our velocity.
+     */
+    private int tiltBucket() {
+        double tilt = Math.max(-MAX_TILT, Math.min(MAX_TILT, velocityY * TILT_PER_VELOCITY));
+        int bucket = (int)Math.round((tilt + MAX_TILT) / TILT_STEP);
+        return Math.max(0, Math.min(rotatedFrames[currentFrame].length - 1, bucket));
+    }
+    
     public Rectangle getBounds() {
-        // Use slightly smaller bounds for more forgiving collision detection
-        int margin = 3;
-        return new Rectangle((int)x + margin, (int)y + margin, 
-                           BIRD_WIDTH - 2*margin, BIRD_HEIGHT - 2*margin);
+        return new Rectangle(getHitboxX(), getHitboxY(), getHitboxWidth(), getHitboxHeight());
+    }
+    
+    // Allocation-free hitbox accessors for the per-tick collision checks
+    
+    public int getHitboxX() {
+        return (int)x + HITBOX_MARGIN;
+    }
+    
+    public int getHitboxY() {
+        return (int)y + HITBOX_MARGIN;
+    }
+    
+    public int getHitboxWidth() {
+        return BIRD_WIDTH - 2*HITBOX_MARGIN;
+    }
+    
+    public int getHitboxHeight() {
+        return BIRD_HEIGHT - 2*HITBOX_MARGIN;
+    }
+    
+    /**
+     * Alpha mask of the frame currently drawn (including its tilt), or null
+     * if the sprite could not be loaded. Loads the sprites on first use.
+     */
+    public CollisionMask getCollisionMask() {
+        if (!spritesLoaded) {
+            loadSpriteSheet();
+        }
+        if (rotatedMasks == null || currentFrame >= rotatedMasks.length) {
+            return null;
+        }
+        return rotatedMasks[currentFrame][tiltBucket()];
+    }
+    
+    public int getCollisionMaskX() {
+        return (int)x + BIRD_WIDTH/2 - ROTATED_SIZE / 2;
+    }
+    
+    public int getCollisionMaskY() {
+        return (int)y + BIRD_HEIGHT/2 - ROTATED_SIZE / 2;
     }
     
     public double getX() {
@@ -157,6 +298,10 @@ public class Bird {
         return BIRD_HEIGHT;
     }
     
+    public double getVelocityY() {
+        return velocityY;
+    }
+    
     public void reset(int screenWidth, int screenHeight) {
         this.screenHeight = screenHeight;
         x = screenWidth / 4.0;
@@ -164,6 +309,21 @@ public class Bird {
         velocityY = 0;
         currentFrame = 0;
         animationCounter = 0;
+        savePreviousPosition();
+    }
+    
+    /**
+     * Makes this bird an exact copy of the other one, for replay checkpoints.
+     */
+    public void copyFrom(Bird other) {
+        screenHeight = other.screenHeight;
+        x = other.x;
+        y = other.y;
+        previousX = other.previousX;
+        previousY = other.previousY;
+        velocityY = other.velocityY;
+        currentFrame = other.currentFrame;
+        animationCounter = other.animationCounter;
     }
     
     public void animate() {
@@ -0,0 +1,91 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Allocation-free collision tests: axis-aligned boxes given as primitives,
+ * plus an optional pixel-accurate test on one-bit masks built from sprite
+ * alpha.
+ */
+public class CollisionMask {
+    // Pixels with at least this alpha count as solid
+    private static final int DEFAULT_ALPHA_THRESHOLD = 128;
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    private CollisionMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+    }
+
+    /**
+     * Same result as Rectangle.intersects for the two boxes, without creating
+     * any Rectangles. Empty boxes never intersect.
+     */
+    public static boolean intersects(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        if (aw <= 0 || ah <= 0 || bw <= 0 || bh <= 0) {
+            return false;
+        }
+        return bx < ax + aw && ax < bx + bw && by < ay + ah && ay < by + bh;
+    }
+
+    public static CollisionMask fromAlpha(BufferedImage image) {
+        return fromAlpha(image, DEFAULT_ALPHA_THRESHOLD);
+    }
+
+    public static CollisionMask fromAlpha(BufferedImage image, int alphaThreshold) {
+        CollisionMask mask = new CollisionMask(image.getWidth(), image.getHeight());
+        for (int y = 0; y < mask.height; y++) {
+            for (int x = 0; x < mask.width; x++) {
+                if ((image.getRGB(x, y) >>> 24) >= alphaThreshold) {
+                    mask.bits[y * mask.wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+        return mask;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isSolid(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /**
+     * Tests whether this mask drawn at (x, y) and the other mask drawn at
+     * (otherX, otherY) share any solid pixel.
+     */
+    public boolean overlaps(int x, int y, CollisionMask other, int otherX, int otherY) {
+        int left = Math.max(x, otherX);
+        int top = Math.max(y, otherY);
+        int right = Math.min(x + width, otherX + other.width);
+        int bottom = Math.min(y + height, otherY + other.height);
+        for (int py = top; py < bottom; py++) {
+            for (int px = left; px < right; px++) {
+                if (isSolid(px - x, py - y) && other.isSolid(px - otherX, py - otherY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
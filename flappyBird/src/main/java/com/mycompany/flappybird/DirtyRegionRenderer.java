@@ -0,0 +1,200 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Optional renderer that keeps the composed frame in an image and only
+ * redraws the regions that changed. Every frame, the panel reports where its
+ * moving parts are drawn (bird, pipe columns, ground strip, score); the
+ * regions from this frame and the previous one are redrawn with the scene
+ * clipped to them, which paints over the old positions and draws the new
+ * ones. Anything else that changes, like night mode or the game over screen,
+ * calls repaintAll().
+ *
+ * The finished frame is still copied to the screen in one opaque blit: the
+ * saving is in composing the layers, which is where the alpha blending is.
+ * Frames are kept at the logical resolution; see LogicalCanvas.
+ * Enable with -Dflappybird.dirtyRegions=true.
+ */
+public class DirtyRegionRenderer {
+    public interface Scene {
+        /** Draws every layer of the frame; may be clipped to a region. */
+        void drawScene(Graphics2D g2d);
+    }
+
+    private static final int MAX_REGIONS = 16;
+
+    // Regions as {x, y, width, height} quadruples
+    private final int[] current = new int[MAX_REGIONS * 4];
+    private final int[] previous = new int[MAX_REGIONS * 4];
+    private final int[] dirty = new int[MAX_REGIONS * 2 * 4];
+    private int currentCount;
+    private int previousCount;
+    private int dirtyCount;
+    private boolean repaintAll = true;
+    private BufferedImage frame;
+    private Graphics2D frameGraphics;
+
+    private final String name;
+    private long frames;
+    private long pixelsPainted;
+    private long fullRepaints;
+    private long lastFramePixels;
+
+    public DirtyRegionRenderer(String name) {
+        this.name = name;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("flappybird.dirtyRegions");
+    }
+
+    /**
+     * Reports that something is drawn in this rectangle this frame.
+     */
+    public void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (currentCount == MAX_REGIONS) {
+            // Out of slots: grow the last region to cover this one too
+            union(current, MAX_REGIONS - 1, x, y, width, height);
+            return;
+        }
+        set(current, currentCount++, x, y, width, height);
+    }
+
+    /** Redraws the whole frame next time, e.g. after a state change. */
+    public void repaintAll() {
+        repaintAll = true;
+    }
+
+    /**
+     * Brings the kept frame up to date and returns it.
+     */
+    public BufferedImage render(int width, int height, Scene scene) {
+        if (frame == null || frame.getWidth() != width || frame.getHeight() != height) {
+            if (frameGraphics != null) {
+                frameGraphics.dispose();
+            }
+            frame = AssetCache.createCompatibleImage(width, height, Transparency.OPAQUE);
+            frameGraphics = frame.createGraphics();
+            repaintAll = true;
+        }
+
+        long pixels = 0;
+        if (repaintAll) {
+            frameGraphics.setClip(null);
+            scene.drawScene(frameGraphics);
+            pixels = (long) width * height;
+            fullRepaints++;
+            repaintAll = false;
+        } else {
+            collectDirtyRegions();
+            for (int i = 0; i < dirtyCount; i++) {
+                int x = Math.max(0, dirty[i * 4]);
+                int y = Math.max(0, dirty[i * 4 + 1]);
+                int right = Math.min(width, dirty[i * 4] + dirty[i * 4 + 2]);
+                int bottom = Math.min(height, dirty[i * 4 + 1] + dirty[i * 4 + 3]);
+                if (right <= x || bottom <= y) {
+                    continue;
+                }
+                frameGraphics.setClip(x, y, right - x, bottom - y);
+                scene.drawScene(frameGraphics);
+                pixels += (long) (right - x) * (bottom - y);
+            }
+        }
+
+        // This frame's regions must be repainted next frame to erase them
+        System.arraycopy(current, 0, previous, 0, currentCount * 4);
+        previousCount = currentCount;
+        currentCount = 0;
+
+        recordFrame(pixels);
+        return frame;
+    }
+
+    private synchronized void recordFrame(long pixels) {
+        frames++;
+        pixelsPainted += pixels;
+        lastFramePixels = pixels;
+    }
+
+    /**
+     * Puts the previous and current regions into dirty, merging overlapping
+     * ones when their bounding box is no bigger than the two apart. Regions
+     * that still overlap just draw those pixels twice, which is harmless since
+     * the scene starts with an opaque background.
+     */
+    private void collectDirtyRegions() {
+        dirtyCount = 0;
+        for (int i = 0; i < previousCount; i++) {
+            addDirty(previous[i * 4], previous[i * 4 + 1], previous[i * 4 + 2], previous[i * 4 + 3]);
+        }
+        for (int i = 0; i < currentCount; i++) {
+            addDirty(current[i * 4], current[i * 4 + 1], current[i * 4 + 2], current[i * 4 + 3]);
+        }
+    }
+
+    private void addDirty(int x, int y, int width, int height) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int dx = dirty[i * 4];
+            int dy = dirty[i * 4 + 1];
+            int dw = dirty[i * 4 + 2];
+            int dh = dirty[i * 4 + 3];
+            if (CollisionMask.intersects(x, y, width, height, dx, dy, dw, dh)) {
+                long unionWidth = Math.max(dx + dw, x + width) - Math.min(dx, x);
+                long unionHeight = Math.max(dy + dh, y + height) - Math.min(dy, y);
+                if (unionWidth * unionHeight <= (long) width * height + (long) dw * dh) {
+                    union(dirty, i, x, y, width, height);
+                    return;
+                }
+            }
+        }
+        set(dirty, dirtyCount++, x, y, width, height);
+    }
+
+    private static void set(int[] regions, int index, int x, int y, int width, int height) {
+        regions[index * 4] = x;
+        regions[index * 4 + 1] = y;
+        regions[index * 4 + 2] = width;
+        regions[index * 4 + 3] = height;
+    }
+
+    private static void union(int[] regions, int index, int x, int y, int width, int height) {
+        int left = Math.min(regions[index * 4], x);
+        int top = Math.min(regions[index * 4 + 1], y);
+        int right = Math.max(regions[index * 4] + regions[index * 4 + 2], x + width);
+        int bottom = Math.max(regions[index * 4 + 1] + regions[index * 4 + 3], y + height);
+        set(regions, index, left, top, right - left, bottom - top);
+    }
+
+    public synchronized long getLastFramePixels() {
+        return lastFramePixels;
+    }
+
+    /**
+     * Prints pixels painted per frame since the last report and starts a new
+     * measurement window.
+     */
+    public synchronized void reportStats() {
+        if (frames == 0) {
+            System.out.println(name + " dirty regions: no frames");
+            return;
+        }
+        double average = (double) pixelsPainted / frames;
+        double fullFrame = frame != null ? (double) frame.getWidth() * frame.getHeight() : 1;
+        System.out.printf("%s dirty regions: %d frames, %.0f px/frame painted (%.1f%% of full), %d full repaints%n",
+                name, frames, average, 100 * average / fullFrame, fullRepaints);
+        frames = 0;
+        pixelsPainted = 0;
+        fullRepaints = 0;
+    }
+}
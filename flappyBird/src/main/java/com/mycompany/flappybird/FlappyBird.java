@@ -7,40 +7,103 @@ package com.mycompany.flappybird;
 
 import javax.swing.JFrame;
 import java.awt.CardLayout;
+import java.awt.Dimension;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.KeyboardFocusManager;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 public class FlappyBird {
     private static JFrame window;
     private static CardLayout cardLayout;
     private static JPanel mainPanel;
+    private static StartupLoader loader;
+    private static LoadingPanel loadingPanel;
     private static HomePanel homePanel;
     private static GamePanel gamePanel;
 
     public static void main(String[] args) {
-        initializeSounds();
+        loader = new StartupLoader();
         window = new JFrame("Flappy Bird");
         cardLayout = new CardLayout();
         mainPanel = new JPanel(cardLayout);
         
-        // Create panels
-        homePanel = new HomePanel(() -> showGamePanel());
-        gamePanel = new GamePanel(() -> showHomePanel());
-        
-        // Add panels to card layout
-        mainPanel.add(homePanel, "home");
-        mainPanel.add(gamePanel, "game");
+        // Show the loading screen right away, assets load in the background
+        loadingPanel = new LoadingPanel(loader);
+        mainPanel.add(loadingPanel, "loading");
         
-        // Window setup
+        // Window setup; the panels scale the logical resolution to any size
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        window.setSize(480, 854);
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Runs before EXIT_ON_CLOSE exits
+                if (gamePanel != null) {
+                    gamePanel.close();
+                }
+            }
+        });
+        mainPanel.setPreferredSize(new Dimension(LogicalCanvas.WIDTH, LogicalCanvas.HEIGHT));
         window.add(mainPanel);
+        window.pack();
         window.setLocationRelativeTo(null);
         window.setVisible(true);
-        window.setResizable(false);
+        if (Boolean.getBoolean("flappybird.fullscreen")) {
+            toggleFullscreen();
+        }
+        // F11 toggles fullscreen on every screen
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
+            if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_F11) {
+                toggleFullscreen();
+                return true;
+            }
+            return false;
+        });
         
         System.out.println("Java start.");
+        loader.start(loadingPanel::repaint)
+                .thenRun(() -> SwingUtilities.invokeLater(FlappyBird::createPanels));
+    }
+    
+    private static void createPanels() {
+        // Every asset is cached by now, so building the panels is quick
+        homePanel = new HomePanel(() -> showGamePanel());
+        gamePanel = new GamePanel(() -> showHomePanel());
+        
+        // Add panels to card layout
+        mainPanel.add(homePanel, "home");
+        mainPanel.add(gamePanel, "game");
+        loader.printReport();
+        AssetCache.printReport();
+        
         // Start with home panel
         showHomePanel();
+        mainPanel.remove(loadingPanel);
+    }
+    
+    /**
+     * Switches between the window and exclusive fullscreen on its screen.
+     * The window is rebuilt undecorated, so the panels' buffers are recreated.
+     */
+    private static void toggleFullscreen() {
+        GraphicsDevice device = window.getGraphicsConfiguration().getDevice();
+        boolean fullscreen = device.getFullScreenWindow() != window;
+        if (fullscreen && !device.isFullScreenSupported()) {
+            System.err.println("Fullscreen is not supported on this screen");
+            return;
+        }
+        window.dispose();
+        window.setUndecorated(fullscreen);
+        device.setFullScreenWindow(fullscreen ? window : null);
+        if (!fullscreen) {
+            window.pack();
+            window.setLocationRelativeTo(null);
+        }
+        window.setVisible(true);
     }
     
     private static void showHomePanel() {
@@ -54,12 +117,4 @@ public class FlappyBird {
         gamePanel.requestFocusInWindow();
         gamePanel.startGame();
     }
-    
-    private static void initializeSounds() {
-        SoundManager.loadSound("background", "/assets/sounds/background.wav");
-        SoundManager.loadSound("flap", "/assets/sounds/flap.wav");
-        SoundManager.loadSound("die", "/assets/sounds/die.wav");
-        SoundManager.loadSound("point", "/assets/sounds/point.wav");
-        SoundManager.loadSound("hit", "/assets/sounds/hit.wav");
-    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Times the stages of a game frame so stutters can be pinned on one of them.
+ * Each phase is recorded into its own LatencyHistogram and, while a flight
+ * recording is running, emitted as a FramePhase JFR event:
+ *
+ *   java -XX:StartFlightRecording=filename=game.jfr ...
+ *
+ * The histograms can be drawn over the game as a debug overlay.
+ */
+public class FrameProfiler {
+    public enum Phase {
+        TICK("tick"),
+        BACKGROUND("background"),
+        PIPES("pipes"),
+        GROUND("ground"),
+        BIRD("bird"),
+        UI("ui"),
+        FRAME("frame total");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    @Name("com.mycompany.flappybird.FramePhase")
+    @Label("Frame Phase")
+    @Category("Flappy Bird")
+    @Description("Time spent in one stage of a game tick or frame")
+    @StackTrace(false)
+    static class FramePhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    // How often the overlay text is rebuilt, so it stays readable and cheap
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color OVERLAY_TEXT = new Color(150, 255, 150);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final int LINE_HEIGHT = 14;
+
+    private final LatencyHistogram[] histograms;
+    private final String[] overlayLines;
+    private long overlayBuiltAt;
+
+    public FrameProfiler(String name) {
+        Phase[] phases = Phase.values();
+        histograms = new LatencyHistogram[phases.length];
+        for (Phase phase : phases) {
+            histograms[phase.ordinal()] = new LatencyHistogram(name + " " + phase.label);
+        }
+        overlayLines = new String[phases.length + 1];
+    }
+
+    /**
+     * Returns a start timestamp to hand to end().
+     */
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    public void end(Phase phase, long start) {
+        long nanos = System.nanoTime() - start;
+        histograms[phase.ordinal()].record(nanos);
+        FramePhaseEvent event = new FramePhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase.label;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    public void report() {
+        for (LatencyHistogram histogram : histograms) {
+            System.out.println(histogram);
+        }
+    }
+
+    /**
+     * Draws p50/p99/max of every phase in the top-left corner.
+     */
+    public void drawOverlay(Graphics2D g2d) {
+        long now = System.nanoTime();
+        if (overlayLines[0] == null || now - overlayBuiltAt >= OVERLAY_REFRESH_NANOS) {
+            overlayLines[0] = String.format("%-12s %7s %7s %7s", "phase ms", "p50", "p99", "max");
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = histograms[phase.ordinal()];
+                overlayLines[phase.ordinal() + 1] = String.format("%-12s %7.3f %7.3f %7.3f", phase.label,
+                        histogram.getPercentileNanos(50) / 1_000_000.0,
+                        histogram.getPercentileNanos(99) / 1_000_000.0,
+                        histogram.getMaxNanos() / 1_000_000.0);
+            }
+            overlayBuiltAt = now;
+        }
+
+        g2d.setFont(OVERLAY_FONT);
+        int width = g2d.getFontMetrics().stringWidth(overlayLines[0]) + 12;
+        g2d.setColor(OVERLAY_BACKGROUND);
+        g2d.fillRect(4, 4, width, overlayLines.length * LINE_HEIGHT + 8);
+        g2d.setColor(OVERLAY_TEXT);
+        for (int i = 0; i < overlayLines.length; i++) {
+            g2d.drawString(overlayLines[i], 10, 4 + (i + 1) * LINE_HEIGHT);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-timestep loop on its own thread. The simulation is stepped at a
+ * constant rate from an accumulator, independent of how long rendering takes,
+ * and a frame is rendered at display rate with the fraction of a step that has
+ * elapsed since the last tick, so views can interpolate between the previous
+ * and current positions.
+ *
+ * By default frames are rendered on a second thread, so a slow frame never
+ * delays a tick and a slow tick never delays a frame. update() and render()
+ * then run concurrently, and the callbacks must hand state over safely.
+ * -Dflappybird.renderThread=false runs both on one thread again.
+ */
+public class GameLoop implements Runnable {
+    /** Simulation rate the physics constants were tuned for (one tick every 30 ms). */
+    public static final double TICKS_PER_SECOND = 1000.0 / 30;
+
+    // Never simulate more than this much time after a stall (debugger, sleep)
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+    private static final int FALLBACK_REFRESH_RATE = 60;
+    private static final boolean SEPARATE_RENDER_THREAD =
+            Boolean.parseBoolean(System.getProperty("flappybird.renderThread", "true"));
+    // Ticks of every loop share one sequence, so a tick index never repeats
+    private static final AtomicLong TICKS = new AtomicLong();
+
+    public interface Callbacks {
+        /** Advances the simulation by exactly one step. */
+        void update();
+
+        /**
+         * Presents a frame; alpha is in [0, 1) between the previous and
+         * current tick. With a separate render thread a tick may finish while
+         * the frame is drawn; getAlpha() gives the alpha for a known tick.
+         */
+        void render(double alpha);
+    }
+
+    private final String name;
+    private final Callbacks callbacks;
+    private final long stepNanos;
+    private final long frameNanos;
+    private final LoopStats tickLateness;
+    private final LoopStats tickTime;
+    private final LoopStats frameTime;
+    // The threads currently allowed to run the loop; null when stopped
+    private volatile Thread thread;
+    private volatile Thread renderThread;
+    // When the tick being run (or last run) was due, in System.nanoTime()
+    private volatile long tickNanos = System.nanoTime();
+
+    public GameLoop(String name, Callbacks callbacks) {
+        this(name, callbacks, TICKS_PER_SECOND, displayRefreshRate());
+    }
+
+    public GameLoop(String name, Callbacks callbacks, double ticksPerSecond, int framesPerSecond) {
+        this.name = name;
+        this.callbacks = callbacks;
+        this.stepNanos = (long) (1_000_000_000L / ticksPerSecond);
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+        this.tickLateness = new LoopStats(name + " tick lateness");
+        this.tickTime = new LoopStats(name + " tick time");
+        this.frameTime = new LoopStats(name + " frame time");
+    }
+
+    private static int displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return FALLBACK_REFRESH_RATE;
+        }
+        DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode();
+        int rate = mode.getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? FALLBACK_REFRESH_RATE : rate;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        Thread loopThread = new Thread(this, name + "-loop");
+        loopThread.setDaemon(true);
+        thread = loopThread;
+        if (SEPARATE_RENDER_THREAD) {
+            Thread frameThread = new Thread(this::renderLoop, name + "-render");
+            frameThread.setDaemon(true);
+            renderThread = frameThread;
+            frameThread.start();
+        }
+        loopThread.start();
+    }
+
+    /**
+     * Asks the loop to finish after its current iteration. Does not wait, so
+     * it is safe to call while holding a lock the loop may be waiting for.
+     */
+    public synchronized void stop() {
+        Thread loopThread = thread;
+        Thread frameThread = renderThread;
+        thread = null;
+        renderThread = null;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+        if (frameThread != null) {
+            LockSupport.unpark(frameThread);
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Index of the tick being run (or last run) by any loop. Tags work
+     * queued from update(), e.g. sounds, with the tick that asked for it.
+     */
+    public static long currentTick() {
+        return TICKS.get();
+    }
+
+    /**
+     * When the tick being run was due, or the last one if none is running.
+     * Call from update() to stamp state handed to the render thread.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Interpolation alpha, clamped to [0, 1], for a frame drawn now from the
+     * state of the tick that was due at tickNanos.
+     */
+    public double getAlpha(long tickNanos) {
+        double alpha = (double) (System.nanoTime() - tickNanos) / stepNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        boolean renderHere = renderThread == null;
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long simulatedNanos = 0;
+        long elapsedNanos = 0;
+        long lastFrame = previous;
+        long nextFrame = previous;
+
+        while (thread == self) {
+            long now = System.nanoTime();
+            long delta = Math.min(now - previous, MAX_FRAME_NANOS);
+            previous = now;
+            accumulator += delta;
+            elapsedNanos += delta;
+
+            while (accumulator >= stepNanos && thread == self) {
+                // How far behind its ideal schedule this tick runs
+                simulatedNanos += stepNanos;
+                tickLateness.record(elapsedNanos - simulatedNanos);
+
+                tickNanos = now - (accumulator - stepNanos);
+                TICKS.incrementAndGet();
+                long tickStart = System.nanoTime();
+                callbacks.update();
+                tickTime.record(System.nanoTime() - tickStart);
+                accumulator -= stepNanos;
+            }
+
+            if (renderHere && now >= nextFrame && thread == self) {
+                callbacks.render((double) accumulator / stepNanos);
+                long frameEnd = System.nanoTime();
+                frameTime.record(frameEnd - lastFrame);
+                lastFrame = frameEnd;
+                nextFrame = nextFrameAfter(nextFrame, frameEnd);
+            }
+
+            // Sleep until whichever comes first: the next tick or the next frame
+            long nextTick = now + (stepNanos - accumulator);
+            long wakeUp = renderHere ? Math.min(nextTick, nextFrame) : nextTick;
+            long sleep = wakeUp - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    /**
+     * Renders at display rate on the render thread, with the alpha of the
+     * latest tick.
+     */
+    private void renderLoop() {
+        Thread self = Thread.currentThread();
+        long lastFrame = System.nanoTime();
+        long nextFrame = lastFrame;
+
+        while (renderThread == self) {
+            long now = System.nanoTime();
+            if (now >= nextFrame) {
+                callbacks.render(Math.min(getAlpha(tickNanos), 1 - Math.ulp(1.0)));
+                long frameEnd = System.nanoTime();
+                frameTime.record(frameEnd - lastFrame);
+                lastFrame = frameEnd;
+                nextFrame = nextFrameAfter(nextFrame, frameEnd);
+            }
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    private long nextFrameAfter(long frame, long frameEnd) {
+        long next = frame + frameNanos;
+        if (next < frameEnd) {
+            // Dropped frames; don't try to catch up on rendering
+            next = frameEnd + frameNanos;
+        }
+        return next;
+    }
+
+    public LoopStats getTickLateness() {
+        return tickLateness;
+    }
+
+    public LoopStats getTickTime() {
+        return tickTime;
+    }
+
+    public LoopStats getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Prints tick and frame statistics collected since the last report and
+     * starts a new measurement window.
+     */
+    public void reportStats() {
+        System.out.println(tickLateness);
+        System.out.println(tickTime);
+        System.out.println(frameTime);
+        tickLateness.reset();
+        tickTime.reset();
+        frameTime.reset();
+    }
+}
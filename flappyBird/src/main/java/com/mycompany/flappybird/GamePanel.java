@@ -5,48 +5,102 @@ package com.mycompany.flappybird;
  * @author tayog
  */
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.net.URL;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
-public class GamePanel extends JPanel implements ActionListener, KeyListener {
+public class GamePanel extends JPanel implements GameLoop.Callbacks, KeyListener, GameWorld.Listener, RenderCanvas.Renderer {
     // Game components
+    private final GameWorld world;
     private final Background background;
     private final Ground ground;
-    private final Bird bird;
-    private final List<Pipe> pipes;
-    private final Timer timer;
+    private final GameLoop loop;
+    private final RenderCanvas canvas; // null when using Swing painting
     private final Runnable returnToHomeCallback;
+    private final Autopilot autopilot; // null when the player flies
     private Font pixelFont;
+    private final FrameProfiler profiler = new FrameProfiler("game");
+    private volatile boolean profilerOverlayVisible = false; // toggled with F3
+
+    // Key presses wait here until the next tick applies them
+    private final InputQueue input = new InputQueue(16);
+    private final LatencyHistogram inputToSimulation = new LatencyHistogram("game input to simulation");
+    private final LatencyHistogram inputToPresent = new LatencyHistogram("game input to present");
+    private long unpresentedInput; // oldest applied input not yet published, guarded by world
+    private long framedInput; // input shown by the frame being presented, render thread only
+
+    // The loop thread publishes a snapshot after every tick and frames draw
+    // the latest one, so drawing never locks the world
+    private final TripleBuffer<WorldSnapshot> snapshots;
+    private long snapshotSequence; // guarded by world
+    private boolean snapshotDropped; // guarded by world
+    private WorldSnapshot view; // snapshot being drawn, render thread only
+    // Game over as of the latest snapshot, so key presses need no lock
+    private volatile boolean publishedGameOver;
+    private long viewSequence = -1;
+
+    private final LogicalCanvas logical = new LogicalCanvas(); // render thread only
+
+    // Optional dirty-region rendering, see DirtyRegionRenderer
+    private final DirtyRegionRenderer dirtyRenderer =
+            DirtyRegionRenderer.isEnabled() ? new DirtyRegionRenderer("game") : null;
+    private final DirtyRegionRenderer.Scene scene = this::drawScene;
+    private double sceneAlpha; // alpha of the frame being drawn, render thread only
+    private int dirtyUiState = -1;
+    private int dirtyScore = -1;
+    private static final int SCORE_BAND_HEIGHT = 90; // covers the score digits and shadow
+
+    // Every game is recorded and appended to the archive off the loop thread
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private final Path replayArchive = replayArchivePath();
+    private final Path runStorePath = runStorePath();
+    private RunStore runStore; // opened on the writer thread
+    private final ExecutorService replayWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replay-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReplayPlayer player; // null unless watching a replay
+    private static final double MIN_REPLAY_SPEED = 0.125;
+    private static final double MAX_REPLAY_SPEED = 64;
+    private double replaySpeed = replaySpeed();
+    private static final int REPLAY_SEEK_TICKS = (int) (5 * GameLoop.TICKS_PER_SECOND);
     
-    // Game state
-    private int score = 0;
-    private boolean gameOver = false;
-    private boolean gameStarted = false;
-    private boolean nightModeActive = false;
+    // Pre-rendered HUD text
+    private TextRenderer.Digits scoreDigits;
+    private TextRenderer.Digits finalScoreDigits;
+    private TextRenderer.Label finalScoreLabel;
+    private TextRenderer.Label nightModeLabel;
+    private TextRenderer.Label gameOverLabel;
+    private TextRenderer.Label restartLabel;
+    private TextRenderer.Label startLabel;
     
     // Constants
-    private static final int PANEL_WIDTH = 480;
-    private static final int PANEL_HEIGHT = 854;
-    private static final int PIPE_SPACING = 250;
-    private static final int NUM_PIPES = 3;
+    private static final int PANEL_WIDTH = GameWorld.WIDTH;
+    private static final int PANEL_HEIGHT = GameWorld.HEIGHT;
     private static final Color TEXT_SHADOW = new Color(0, 0, 0, 150);
     private static final Color PRIMARY_TEXT = new Color(255, 255, 255);
     private static final Color ACCENT_COLOR = new Color(150, 255, 150);
-    private long nightModeActivatedTime = 0;
+    private static final Color GOLD = new Color(255, 215, 0);
+    private static final Color GAME_OVER_RED = new Color(255, 50, 50);
+    private static final Color OVERLAY = new Color(0, 0, 0, 150);
+    private volatile long nightModeActivatedTime = 0;
     private final int NIGHT_MODE_MESSAGE_DURATION = 3000;
 
     public GamePanel(Runnable returnToHomeCallback) {
@@ -54,223 +108,541 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
         
         // Initialize font
         initializeFont();
+        initializeText();
         
         // Game entities
+        world = new GameWorld();
+        world.setListener(this);
+        Bird.loadSpriteSheet();
+        Pipe.loadImages();
         background = new Background();
         ground = new Ground(PANEL_WIDTH, PANEL_HEIGHT);
-        bird = new Bird(PANEL_WIDTH, PANEL_HEIGHT);
-        pipes = initializePipes();
+        autopilot = loadAutopilot();
+        Replay replay = loadReplay();
+        player = replay != null ? new ReplayPlayer(replay, world, this) : null;
 
         // Setup panel
         setFocusable(true);
         addKeyListener(this);
-        timer = new Timer(30, this);
+        if (RenderCanvas.isActiveRenderingEnabled()) {
+            canvas = new RenderCanvas(this);
+            canvas.addKeyListener(this);
+            setLayout(new BorderLayout());
+            add(canvas, BorderLayout.CENTER);
+        } else {
+            canvas = null;
+        }
+        loop = new GameLoop("game", this);
+        snapshots = new TripleBuffer<>(() -> new WorldSnapshot(world, ground));
+        synchronized (world) {
+            publishSnapshot(System.nanoTime());
+        }
     }
 
-    private void initializeFont() {
+    /**
+     * Loads the trained agent named by -Dflappybird.autopilot, if any.
+     */
+    private static Autopilot loadAutopilot() {
+        String file = System.getProperty("flappybird.autopilot");
+        if (file == null) {
+            return null;
+        }
         try {
-            URL fontUrl = getClass().getResource("/assets/fonts/pixel-font.ttf");
-            Font baseFont = Font.createFont(Font.TRUETYPE_FONT, fontUrl.openStream());
+            Autopilot loaded = Autopilot.load(Path.of(file));
+            System.out.println("Autopilot loaded from " + file);
+            return loaded;
+        } catch (IOException e) {
+            System.err.println("Could not load autopilot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Archive new games are appended to: -Dflappybird.replays, default
+     * replays.fbr in the working directory; set it empty to turn recording off.
+     */
+    private static Path replayArchivePath() {
+        String file = System.getProperty("flappybird.replays", "replays.fbr");
+        return file.isEmpty() ? null : Path.of(file);
+    }
+
+    private static Path runStorePath() {
+        String file = System.getProperty("flappybird.runs", "runs.fbs");
+        return file.isEmpty() ? null : Path.of(file);
+    }
+
+    /**
+     * Replay playback speed from -Dflappybird.replaySpeed (default 1),
+     * clamped to the range the speed keys allow.
+     */
+    private static double replaySpeed() {
+        String value = System.getProperty("flappybird.replaySpeed");
+        if (value == null) {
+            return 1;
+        }
+        try {
+            double speed = Double.parseDouble(value);
+            if (!Double.isNaN(speed)) {
+                double clamped = Math.max(MIN_REPLAY_SPEED, Math.min(MAX_REPLAY_SPEED, speed));
+                if (clamped != speed) {
+                    System.err.println("flappybird.replaySpeed must be between " + MIN_REPLAY_SPEED
+                            + " and " + MAX_REPLAY_SPEED + ", got " + value + "; using " + clamped);
+                }
+                return clamped;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("flappybird.replaySpeed must be a number, got " + value + "; using 1");
+        return 1;
+    }
+
+    /**
+     * Loads the replay to watch from -Dflappybird.replay=archive, picking
+     * -Dflappybird.replayIndex (default: the latest game), if set.
+     */
+    private static Replay loadReplay() {
+        String file = System.getProperty("flappybird.replay");
+        if (file == null) {
+            return null;
+        }
+        try {
+            List<Replay> replays = ReplayArchive.readAll(Path.of(file));
+            int index = Integer.getInteger("flappybird.replayIndex", replays.size() - 1);
+            if (index < 0 || index >= replays.size()) {
+                System.err.println("No replay " + index + " in " + file + " (" + replays.size() + " games)");
+                return null;
+            }
+            Replay replay = replays.get(index);
+            System.out.println("Watching replay " + index + " from " + file + ", score " + replay.getScore());
+            return replay;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not load replay: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void initializeFont() {
+        Font baseFont = AssetCache.getFont(StartupLoader.FONT_PATH);
+        if (baseFont != null) {
             pixelFont = baseFont.deriveFont(36f);
-        } catch (Exception e) {
+        } else {
             System.err.println("Error loading pixel font, using fallback");
             pixelFont = new Font("Arial", Font.BOLD, 36);
         }
     }
 
-    private List<Pipe> initializePipes() {
-        List<Pipe> pipes = new ArrayList<>();
-        for (int i = 0; i < NUM_PIPES; i++) {
-            pipes.add(new Pipe(PANEL_WIDTH + i * PIPE_SPACING));
-        }
-        return pipes;
+    private void initializeText() {
+        TextRenderer text = new TextRenderer(pixelFont);
+        scoreDigits = text.createDigits(36f, PRIMARY_TEXT, TEXT_SHADOW, 3);
+        finalScoreDigits = text.createDigits(24f, PRIMARY_TEXT, TEXT_SHADOW, 2);
+        finalScoreLabel = text.createLabel("SCORE: ", 24f, PRIMARY_TEXT, TEXT_SHADOW, 2);
+        nightModeLabel = text.createLabel("NIGHT MODE UNLOCKED!", 18f, GOLD, null, 0);
+        gameOverLabel = text.createLabel("GAME OVER", 48f, GAME_OVER_RED, TEXT_SHADOW, 2);
+        restartLabel = text.createLabel("PRESS SPACE TO RESTART", 18f, ACCENT_COLOR, TEXT_SHADOW, 2);
+        startLabel = text.createLabel("PRESS SPACE TO START", 24f, ACCENT_COLOR, TEXT_SHADOW, 2);
     }
 
     public void startGame() {
-        if (!timer.isRunning()) {
-            timer.start();
+        synchronized (world) {
+            if (player != null) {
+                player.restart();
+            } else {
+                world.start();
+                recorder.start(world);
+            }
+            publishSnapshot(System.nanoTime());
         }
-        gameStarted = true;
+        loop.start();
         SoundManager.playSound("flap"); // Initial flap sound
         requestFocusInWindow();
         System.out.println("Game start.");
     }
 
     public void stopGame() {
-        if (timer.isRunning()) {
-            timer.stop();
+        if (loop.isRunning()) {
+            loop.stop();
+            loop.reportStats();
+            profiler.report();
+            profiler.reset();
+            SoundManager.reportStats();
+            System.out.printf("game snapshots: %d published, %d dropped, %d duplicated%n",
+                    snapshots.getPublished(), snapshots.getDropped(), snapshots.getDuplicated());
+            snapshots.resetStats();
+            if (dirtyRenderer != null) {
+                dirtyRenderer.reportStats();
+            }
+            System.out.println(inputToSimulation);
+            System.out.println(inputToPresent + ", dropped inputs=" + input.getDropped());
+            inputToSimulation.reset();
+            inputToPresent.reset();
+        }
+    }
+
+    /**
+     * Stops the game and closes the run store once the writer thread has
+     * saved everything queued before. Called when the window closes.
+     */
+    public void close() {
+        stopGame();
+        write("close the run store", this::closeRunStore);
+        replayWriter.shutdown();
+        try {
+            if (!replayWriter.awaitTermination(2, TimeUnit.SECONDS)) {
+                System.err.println("Gave up waiting for runs and replays to be saved");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    @Override
+    public boolean requestFocusInWindow() {
+        return canvas != null ? canvas.requestFocusInWindow() : super.requestFocusInWindow();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        
+        if (canvas == null) {
+            renderFrame((Graphics2D) g);
+            recordPresentedInput();
+        }
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g2d) {
+        long frameStart = profiler.begin();
+        view = snapshots.acquire();
+        sceneAlpha = loop.getAlpha(view.getTickNanos());
+        if (view.getSequence() != viewSequence) {
+            framedInput = view.getInputTime();
+            viewSequence = view.getSequence();
+        }
+
+        // Everything is drawn at the logical size, then scaled to the window once
+        if (dirtyRenderer != null) {
+            markDirtyRegions();
+            logical.present(g2d, getWidth(), getHeight(), dirtyRenderer.render(PANEL_WIDTH, PANEL_HEIGHT, scene));
+        } else {
+            drawScene(logical.beginFrame(g2d, getWidth(), getHeight()));
+            logical.endFrame(g2d);
+        }
+
+        profiler.end(FrameProfiler.Phase.FRAME, frameStart);
+
+        if (profilerOverlayVisible) {
+            profiler.drawOverlay(g2d);
+        }
+    }
+
+    /**
+     * Reports where the moving parts are drawn this frame, and asks for a
+     * full repaint when anything else on screen changed.
+     */
+    private void markDirtyRegions() {
+        int uiState = (view.getWorld().isGameOver() ? 1 : 0) | (view.getWorld().isGameStarted() ? 2 : 0)
+                | (view.getWorld().isNightModeActive() ? 4 : 0) | (isNightModeMessageVisible() ? 8 : 0)
+                | view.getFadeStep() << 4;
+        if (uiState != dirtyUiState) {
+            dirtyRenderer.repaintAll();
+            dirtyUiState = uiState;
+        }
+
+        Bird bird = view.getWorld().getBird();
+        int birdSize = Bird.getDrawSize();
+        dirtyRenderer.add(bird.getDrawX(sceneAlpha), bird.getDrawY(sceneAlpha), birdSize, birdSize);
+        PipeField pipes = view.getWorld().getPipes();
+        for (int i = 0; i < pipes.size(); i++) {
+            int x = pipes.getDrawX(i, sceneAlpha);
+            if (x < PANEL_WIDTH && x + Pipe.PIPE_WIDTH > 0) {
+                dirtyRenderer.add(x, 0, Pipe.PIPE_WIDTH, PANEL_HEIGHT);
+            }
+        }
+        dirtyRenderer.add(0, ground.getY(), PANEL_WIDTH, ground.getHeight());
+        if (view.getWorld().getScore() != dirtyScore) {
+            dirtyRenderer.add(0, 0, PANEL_WIDTH, SCORE_BAND_HEIGHT);
+            dirtyScore = view.getWorld().getScore();
+        }
+    }
+
+    private void drawScene(Graphics2D g2d) {
+        Graphics g = g2d;
+        double alpha = sceneAlpha;
+
         // Configure rendering
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
 
         // Draw game elements
-        background.draw(g, getWidth(), getHeight());
-        pipes.forEach(pipe -> pipe.draw(g));
-        ground.draw(g);
-        bird.draw(g);
-        
+        long start = profiler.begin();
+        background.draw(g, PANEL_WIDTH, PANEL_HEIGHT, view.getFadeStep());
+        profiler.end(FrameProfiler.Phase.BACKGROUND, start);
+
+        start = profiler.begin();
+        view.getWorld().getPipes().draw(g, alpha, PANEL_WIDTH);
+        profiler.end(FrameProfiler.Phase.PIPES, start);
+
+        start = profiler.begin();
+        view.getGround().draw(g, alpha);
+        profiler.end(FrameProfiler.Phase.GROUND, start);
+
+        start = profiler.begin();
+        view.getWorld().getBird().draw(g, alpha);
+        profiler.end(FrameProfiler.Phase.BIRD, start);
+
         // Draw UI elements
+        start = profiler.begin();
         drawUI(g2d);
+        profiler.end(FrameProfiler.Phase.UI, start);
     }
 
     private void drawUI(Graphics2D g2d) {
         drawScore(g2d);
 
         // Draw achievement message
-        if (nightModeActive) {
-            long elapsed = System.currentTimeMillis() - nightModeActivatedTime;
-            if (elapsed <= NIGHT_MODE_MESSAGE_DURATION) {
-                drawAchievementMessage(g2d);
-            }
+        if (isNightModeMessageVisible()) {
+            drawAchievementMessage(g2d);
         }
 
 
-        if (gameOver) {
+        if (view.getWorld().isGameOver()) {
             drawGameOverScreen(g2d);
-        } else if (!gameStarted) {
+        } else if (!view.getWorld().isGameStarted()) {
             drawStartInstruction(g2d);
         }
     }
     
+    private boolean isNightModeMessageVisible() {
+        return view.getWorld().isNightModeActive()
+                && System.currentTimeMillis() - nightModeActivatedTime <= NIGHT_MODE_MESSAGE_DURATION;
+    }
+
     private void drawAchievementMessage(Graphics2D g2d) {
-        g2d.setFont(pixelFont.deriveFont(18f));
-        String message = "NIGHT MODE UNLOCKED!";
-        int textWidth = g2d.getFontMetrics().stringWidth(message);
         int yPosition = 120; // Position near the top
-
-        // Text
-        g2d.setColor(new Color(255, 215, 0)); // Gold color
-        g2d.drawString(message, (getWidth() - textWidth)/2, yPosition);
+        nightModeLabel.drawCentered(g2d, PANEL_WIDTH, yPosition);
     }
 
     private void drawScore(Graphics2D g2d) {
-        g2d.setFont(pixelFont.deriveFont(36f));
-        String scoreText = Integer.toString(score);
-        int textWidth = g2d.getFontMetrics().stringWidth(scoreText);
-        
-        // Shadow
-        g2d.setColor(TEXT_SHADOW);
-        g2d.drawString(scoreText, (getWidth() - textWidth)/2 + 3, 65);
-        
-        // Main text
-        g2d.setColor(PRIMARY_TEXT);
-        g2d.drawString(scoreText, (getWidth() - textWidth)/2, 62);
+        scoreDigits.drawCentered(g2d, view.getWorld().getScore(), PANEL_WIDTH, 62);
     }
 
     private void drawGameOverScreen(Graphics2D g2d) {
         // Dark overlay
-        g2d.setColor(new Color(0, 0, 0, 150));
-        g2d.fillRect(0, 0, getWidth(), getHeight());
+        g2d.setColor(OVERLAY);
+        g2d.fillRect(0, 0, PANEL_WIDTH, PANEL_HEIGHT);
         
         // Game Over text
-        drawTextWithShadow(g2d, "GAME OVER", 48f, new Color(255, 50, 50), getHeight()/2 - 48);
+        gameOverLabel.drawCentered(g2d, PANEL_WIDTH, PANEL_HEIGHT/2 - 48);
         
         // Final score
-        drawTextWithShadow(g2d, "SCORE: " + score, 24f, PRIMARY_TEXT, getHeight()/2 + 3);
+        int score = view.getWorld().getScore();
+        int scoreWidth = finalScoreLabel.getWidth() + finalScoreDigits.measure(score);
+        int scoreX = (PANEL_WIDTH - scoreWidth) / 2;
+        finalScoreLabel.draw(g2d, scoreX, PANEL_HEIGHT/2 + 3);
+        finalScoreDigits.draw(g2d, score, scoreX + finalScoreLabel.getWidth(), PANEL_HEIGHT/2 + 3);
         
         // Restart instruction
-        drawTextWithShadow(g2d, "PRESS SPACE TO RESTART", 18f, ACCENT_COLOR, getHeight()/2 + 43);
+        restartLabel.drawCentered(g2d, PANEL_WIDTH, PANEL_HEIGHT/2 + 43);
     }
 
     private void drawStartInstruction(Graphics2D g2d) {
-        drawTextWithShadow(g2d, "PRESS SPACE TO START", 24f, ACCENT_COLOR, getHeight()/2 + 3);
+        startLabel.drawCentered(g2d, PANEL_WIDTH, PANEL_HEIGHT/2 + 3);
     }
 
-    private void drawTextWithShadow(Graphics2D g2d, String text, float size, Color color, int yPos) {
-        g2d.setFont(pixelFont.deriveFont(size));
-        int textWidth = g2d.getFontMetrics().stringWidth(text);
-        int xPos = (getWidth() - textWidth) / 2;
-        
-        // Shadow
-        g2d.setColor(TEXT_SHADOW);
-        g2d.drawString(text, xPos + 2, yPos + 2);
-        
-        // Main text
-        g2d.setColor(color);
-        g2d.drawString(text, xPos, yPos);
+    @Override
+    public void update() {
+        long start = profiler.begin();
+        synchronized (world) {
+            applyInput();
+            if (player != null) {
+                // Playback may step several ticks, or none, per loop tick
+                int stepped = player.advance(replaySpeed);
+                background.update();
+                ground.setSpeed(world.getPipes().getSpeed());
+                ground.savePreviousPosition();
+                for (int i = 0; i < stepped; i++) {
+                    ground.update();
+                }
+            } else {
+                boolean running = !world.isGameOver() && world.isGameStarted();
+                if (running && autopilot != null && autopilot.shouldFlap(world)) {
+                    world.flap();
+                }
+                world.tick();
+                background.update();
+                ground.setSpeed(world.getPipes().getSpeed());
+                ground.savePreviousPosition();
+                if (running) {
+                    ground.update();
+                }
+            }
+            publishSnapshot(loop.getTickNanos());
+        }
+        profiler.end(FrameProfiler.Phase.TICK, start);
+    }
+
+    /**
+     * Copies the world into the next snapshot and hands it to the renderer.
+     * Callers hold the world lock, which also keeps them from publishing at
+     * the same time.
+     */
+    private void publishSnapshot(long tickNanos) {
+        WorldSnapshot snapshot = snapshots.getBack();
+        long inputTime = unpresentedInput;
+        if (snapshotDropped && snapshot.getInputTime() != 0
+                && (inputTime == 0 || snapshot.getInputTime() < inputTime)) {
+            // That snapshot was never drawn, so its input is still unseen
+            inputTime = snapshot.getInputTime();
+        }
+        snapshot.copyFrom(world, ground, background, tickNanos, inputTime, snapshotSequence++);
+        unpresentedInput = 0;
+        snapshotDropped = snapshots.publish();
+        publishedGameOver = world.isGameOver();
+    }
+
+    /**
+     * Applies the key presses queued since the last tick, so input always
+     * lands on a tick boundary.
+     */
+    private void applyInput() {
+        long now = System.nanoTime();
+        while (input.hasNext()) {
+            int type = input.peekType();
+            if (player != null) {
+                applyReplayControl(type);
+            } else if (type == InputQueue.FLAP && !world.isGameOver()) {
+                world.flap(); // onFlap plays the sound
+                inputToSimulation.record(now - input.peekTime());
+                if (unpresentedInput == 0) {
+                    unpresentedInput = input.peekTime();
+                }
+            }
+            input.remove();
+        }
+    }
+
+    private void applyReplayControl(int type) {
+        switch (type) {
+            case InputQueue.SEEK_BACK -> player.seek(world.getTickCount() - REPLAY_SEEK_TICKS);
+            case InputQueue.SEEK_FORWARD -> player.seek(world.getTickCount() + REPLAY_SEEK_TICKS);
+            case InputQueue.SLOWER -> replaySpeed = Math.max(MIN_REPLAY_SPEED, replaySpeed / 2);
+            case InputQueue.FASTER -> replaySpeed = Math.min(MAX_REPLAY_SPEED, replaySpeed * 2);
+            default -> { }
+        }
+        // Seeking may cross the night mode score in either direction
+        background.setNightMode(world.isNightModeActive());
+        ground.setNightMode(world.isNightModeActive());
+    }
+
+    private void recordPresentedInput() {
+        if (framedInput != 0) {
+            inputToPresent.record(System.nanoTime() - framedInput);
+            framedInput = 0;
+        }
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!gameOver && gameStarted) {
-            bird.update();
+    public void render(double alpha) {
+        // renderFrame takes the alpha of the snapshot it draws instead
+        if (canvas != null) {
+            canvas.present();
+            recordPresentedInput();
+        } else {
+            repaint();
+        }
+    }
+
+    @Override
+    public void onFlap() {
+        recorder.recordFlap(world.getTickCount());
+        SoundManager.playSound("flap");
+    }
 
-            for (Pipe pipe : pipes) {
-                pipe.update();
+    @Override
+    public void onScore(int score) {
+        SoundManager.playSound("point");
+        System.out.println("Score: " + score);
+    }
 
-                if (pipe.getX() + pipe.getWidth() < 0) {
-                    int maxX = pipes.stream().mapToInt(Pipe::getX).max().orElse(PANEL_WIDTH);
-                    pipe.reset(maxX + PIPE_SPACING);
-                }
+    @Override
+    public void onNightMode() {
+        nightModeActivatedTime = System.currentTimeMillis(); // Record activation time
+        background.fadeToNightMode(true);
+        ground.setNightMode(true);
+        SoundManager.playSound("point"); // Play extra sound
+    }
 
-                // Check for scoring
-                if (pipe.getX() + pipe.getWidth() < bird.getX() && !pipe.isScored()) {
-                    score++;
-                    pipe.setScored(true);
-                    SoundManager.playSound("point");
-                    System.out.println("Score: " + score);
-                    
-                    // Activate night mode 
-                    if (score >= 20 && !nightModeActive) {
-                        nightModeActive = true;
-                        nightModeActivatedTime = System.currentTimeMillis(); // Record activation time
-                        background.setNightMode(true);
-                        ground.setNightMode(true);
-                        SoundManager.playSound("point"); // Play extra sound
-                    }
+    @Override
+    public void onDeath(boolean hitPipe) {
+        SoundManager.playSound(hitPipe ? "hit" : "die");
+        System.out.println("Bird died.");
+        saveRun();
+        saveReplay();
+    }
 
+    private void saveRun() {
+        // The history is the player's own: no replays, no autopilot games
+        if (player != null || autopilot != null || runStorePath == null) {
+            return;
+        }
+        int score = world.getScore();
+        long ticks = world.getTickCount();
+        long seed = world.getSeed();
+        write("save run", () -> {
+            try {
+                if (runStore == null) {
+                    runStore = RunStore.open(runStorePath);
                 }
+                runStore.append(score, ticks, seed);
+                List<RunStore.Run> best = runStore.top(1);
+                LocalDate today = LocalDate.now();
+                System.out.println("Best score: " + best.get(0).getScore() + ", today: "
+                        + runStore.bestOn(today, ZoneId.systemDefault()) + " in "
+                        + runStore.runsOn(today, ZoneId.systemDefault()).size() + " runs");
+            } catch (IOException e) {
+                System.err.println("Could not save run: " + e.getMessage());
             }
+        });
+    }
 
-            ground.update();
-            checkCollisions();
+    /**
+     * Queues a task on the writer thread. The loop may still be finishing
+     * its last tick when close() shuts the writer down, so a game that ends
+     * then is not saved.
+     */
+    private void write(String what, Runnable task) {
+        try {
+            replayWriter.execute(task);
+        } catch (RejectedExecutionException e) {
+            System.err.println("Could not " + what + ": the game is closing");
         }
-        repaint();
     }
-    
-    private void checkCollisions() {
-        Rectangle birdBounds = bird.getBounds();
-        
-        // Ground collision
-        if (bird.getY() + bird.getHeight() >= PANEL_HEIGHT - 35 - 130) {
-            if (!gameOver) {
-                SoundManager.playSound("die"); // Death sound
-                System.out.println("Bird died.");
-            }
-            gameOver = true;
+
+    private void closeRunStore() {
+        if (runStore == null) {
             return;
         }
-        
-        // Ceiling collision
-        if (bird.getY() <= 0) {
-            if (!gameOver) {
-                SoundManager.playSound("die"); // Death sound
-                System.out.println("Bird died.");
-            }
-            gameOver = true;
+        try {
+            runStore.close();
+        } catch (IOException e) {
+            System.err.println("Could not close run store: " + e.getMessage());
+        }
+        runStore = null;
+    }
+
+    private void saveReplay() {
+        Replay replay = recorder.finish(world);
+        if (replay == null || replayArchive == null) {
             return;
         }
-        
-        // Pipe collision
-        for (Pipe pipe : pipes) {
-            Rectangle[] pipeBounds = pipe.getBounds();
-            if (birdBounds.intersects(pipeBounds[0]) || birdBounds.intersects(pipeBounds[1])) {
-                if (!gameOver) {
-                    SoundManager.playSound("hit"); // Hit sound
-                    System.out.println("Bird died.");
-                }
-                gameOver = true;
-                return;
+        write("save replay", () -> {
+            try {
+                ReplayArchive.append(replayArchive, replay);
+            } catch (IOException e) {
+                System.err.println("Could not save replay: " + e.getMessage());
             }
-        }
+        });
     }
     
     private void returnToHome() {
@@ -282,15 +654,12 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
     }
 
     private void restartGame() {
-        gameOver = false;
-        gameStarted = false;
-        nightModeActive = false;
-        background.setNightMode(false);
-        ground.setNightMode(false);
-        score = 0;
-        bird.reset(PANEL_WIDTH, PANEL_HEIGHT);
-        for (int i = 0; i < pipes.size(); i++) {
-            pipes.get(i).reset(PANEL_WIDTH + i * PIPE_SPACING);
+        // The loop may still be finishing a tick after stop()
+        synchronized (world) {
+            world.reset();
+            background.setNightMode(false);
+            ground.setNightMode(false);
+            publishSnapshot(System.nanoTime());
         }
         System.out.println("Game restarted.");
     }
@@ -298,14 +667,23 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
     @Override
     public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            if (gameOver) {
+            // Never hold the world lock here: returning home prints every
+            // stat, and the tick thread would wait for all of it
+            if (publishedGameOver) {
                 returnToHome();
             } else {
-                if (!gameStarted) {
-                    gameStarted = true;
-                }
-                bird.jump();
-                SoundManager.playSound("flap"); // Flap sound
+                input.offer(InputQueue.FLAP, System.nanoTime());
+            }
+        } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+            profilerOverlayVisible = !profilerOverlayVisible;
+        } else if (player != null) {
+            // Replay controls: arrows seek 5 s, up/down change speed
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_LEFT -> input.offer(InputQueue.SEEK_BACK, System.nanoTime());
+                case KeyEvent.VK_RIGHT -> input.offer(InputQueue.SEEK_FORWARD, System.nanoTime());
+                case KeyEvent.VK_DOWN -> input.offer(InputQueue.SLOWER, System.nanoTime());
+                case KeyEvent.VK_UP -> input.offer(InputQueue.FASTER, System.nanoTime());
+                default -> { }
             }
         }
     }
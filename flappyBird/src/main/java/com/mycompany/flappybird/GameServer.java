@@ -0,0 +1,254 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless server hosting many games at once. Every TCP connection gets its
+ * own seeded GameWorld, which runs the same rules as the desktop game at the
+ * same tick rate. One selector thread accepts connections and reads flaps;
+ * the sessions are spread over one tick thread per core ("shards"), and each
+ * shard steps all of its sessions every tick and writes their state deltas
+ * (see ServerProtocol) straight to the non-blocking sockets.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.GameServer [port]
+ *
+ * listens on localhost (default port 7777) and prints load every few
+ * seconds; drive it with LoadGenerator. -Dflappybird.serverShards sets the
+ * number of tick threads and -Dflappybird.serverSeconds stops the server
+ * after that long.
+ */
+public class GameServer {
+    private static final long REPORT_NANOS = 5_000_000_000L;
+
+    private final int port;
+    private final Shard[] shards;
+    private final Random seeds = new Random();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder slowClients = new LongAdder();
+    // From when a tick was due until a session's state for it was written
+    private final LatencyHistogram tickLatency = new LatencyHistogram("server tick latency");
+
+    public GameServer(int port, int shardCount) {
+        this.port = port;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ServerProtocol.DEFAULT_PORT;
+        int shards = Integer.getInteger("flappybird.serverShards", Runtime.getRuntime().availableProcessors());
+        long seconds = Long.getLong("flappybird.serverSeconds", 0);
+        new GameServer(port, shards).run(seconds);
+    }
+
+    /**
+     * Serves until the given number of seconds has passed, or forever if 0.
+     */
+    public void run(long seconds) throws IOException {
+        for (int i = 0; i < shards.length; i++) {
+            Thread thread = new Thread(shards[i], "server-shard-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try (Selector selector = Selector.open();
+                ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Game server listening on port " + port + " with " + shards.length + " shards");
+
+            ByteBuffer readBuffer = ByteBuffer.allocateDirect(256);
+            long start = System.nanoTime();
+            long end = seconds > 0 ? start + seconds * 1_000_000_000L : Long.MAX_VALUE;
+            Report report = new Report(start);
+            while (System.nanoTime() - end < 0) {
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(server, selector);
+                    } else if (key.isReadable()) {
+                        read(key, readBuffer);
+                    }
+                }
+                if (System.nanoTime() - report.time >= REPORT_NANOS) {
+                    report = report(report);
+                }
+            }
+            report(report);
+        }
+    }
+
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ServerSession session = new ServerSession(channel, seeds.nextLong());
+            channel.register(selector, SelectionKey.OP_READ, session);
+            Shard shard = shards[0];
+            for (Shard candidate : shards) {
+                if (candidate.size.get() < shard.size.get()) {
+                    shard = candidate;
+                }
+            }
+            shard.add(session);
+            sessionCount.incrementAndGet();
+        }
+    }
+
+    private void read(SelectionKey key, ByteBuffer readBuffer) {
+        ServerSession session = (ServerSession) key.attachment();
+        long now = System.nanoTime();
+        try {
+            readBuffer.clear();
+            int read = session.getChannel().read(readBuffer);
+            if (read < 0) {
+                key.cancel();
+                session.close();
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                if (readBuffer.get() == ServerProtocol.FLAP) {
+                    session.offerFlap(now);
+                }
+            }
+        } catch (IOException e) {
+            key.cancel();
+            session.close();
+        }
+    }
+
+    /** Load since the previous report. */
+    private static final class Report {
+        final long time;
+        final long cpuNanos;
+        final long ticks;
+
+        Report(long time) {
+            this(time, processCpuNanos(), 0);
+        }
+
+        Report(long time, long cpuNanos, long ticks) {
+            this.time = time;
+            this.cpuNanos = cpuNanos;
+            this.ticks = ticks;
+        }
+    }
+
+    private Report report(Report previous) {
+        long now = System.nanoTime();
+        long cpu = processCpuNanos();
+        long totalTicks = ticks.sum();
+        double seconds = (now - previous.time) / 1e9;
+        double cores = (cpu - previous.cpuNanos) / 1e9 / seconds;
+        double ticksPerSecond = (totalTicks - previous.ticks) / seconds;
+        // Sessions one core keeps at full tick rate, from the ticks actually
+        // run, so it stays honest when the server is overloaded
+        double sessionsPerCore = cores > 0 ? ticksPerSecond / GameLoop.TICKS_PER_SECOND / cores : 0;
+        System.out.printf("server: %d sessions, %.0f session ticks/s, %.2f cores busy, %.0f sessions/core, "
+                + "p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms, %d slow clients dropped%n",
+                sessionCount.get(), ticksPerSecond, cores, sessionsPerCore,
+                tickLatency.getPercentileNanos(50) / 1e6, tickLatency.getPercentileNanos(99) / 1e6,
+                tickLatency.getPercentileNanos(99.9) / 1e6, tickLatency.getMaxNanos() / 1e6,
+                slowClients.sum());
+        tickLatency.reset();
+        return new Report(now, cpu, totalTicks);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    /**
+     * A tick thread and the sessions it owns. New sessions are handed over
+     * through a queue and picked up at the next tick.
+     */
+    private final class Shard implements Runnable {
+        private final ConcurrentLinkedQueue<ServerSession> added = new ConcurrentLinkedQueue<>();
+        private final List<ServerSession> sessions = new ArrayList<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        void add(ServerSession session) {
+            size.incrementAndGet();
+            added.add(session);
+        }
+
+        @Override
+        public void run() {
+            long stepNanos = (long) (1_000_000_000L / GameLoop.TICKS_PER_SECOND);
+            long nextTick = System.nanoTime();
+            while (true) {
+                long sleep = nextTick - System.nanoTime();
+                if (sleep > 0) {
+                    LockSupport.parkNanos(this, sleep);
+                    continue;
+                }
+                ServerSession session;
+                while ((session = added.poll()) != null) {
+                    sessions.add(session);
+                }
+                tick(nextTick);
+                nextTick += stepNanos;
+                long now = System.nanoTime();
+                if (now - nextTick > stepNanos * 10) {
+                    // Hopelessly behind; skip ahead instead of bursting
+                    nextTick = now;
+                }
+            }
+        }
+
+        private void tick(long dueNanos) {
+            int kept = 0;
+            for (int i = 0; i < sessions.size(); i++) {
+                ServerSession session = sessions.get(i);
+                if (session.tick()) {
+                    tickLatency.record(System.nanoTime() - dueNanos);
+                    sessions.set(kept++, session);
+                } else {
+                    if (session.isOverflowed()) {
+                        slowClients.increment();
+                    }
+                    size.decrementAndGet();
+                    sessionCount.decrementAndGet();
+                }
+            }
+            ticks.add(kept);
+            while (sessions.size() > kept) {
+                sessions.remove(sessions.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.util.Random;
+
+/**
+ * Headless game simulation: bird physics, pipe scrolling and recycling,
+ * scoring and the night mode transition. Has no Swing or sound dependencies,
+ * so it can be stepped from any thread as fast as the CPU allows. The panels
+ * only draw it and forward input to it.
+ *
+ * Every game is generated from a seed: the same seed and the same flaps on the
+ * same ticks always play out identically, which is what replays rely on.
+ */
+public class GameWorld {
+    public static final int WIDTH = 480;
+    public static final int HEIGHT = 854;
+    static final int PIPE_SPACING = 250;
+    static final int NUM_PIPES = 3;
+    static final int NIGHT_MODE_SCORE = 20;
+    // Sky left visible below the ground strip
+    static final int GROUND_MARGIN = 35;
+    // The bird lands 2 px above the 128 px ground strip
+    static final int GROUND_COLLISION_HEIGHT = 130;
+    static final int GROUND_COLLISION_Y = HEIGHT - GROUND_MARGIN - GROUND_COLLISION_HEIGHT;
+
+    /**
+     * Receives the game events the simulation produces (sounds, logging, UI).
+     * All methods run on the thread that steps the world.
+     */
+    public interface Listener {
+        default void onFlap() {}
+        default void onScore(int score) {}
+        default void onNightMode() {}
+        default void onDeath(boolean hitPipe) {}
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {};
+
+    private final Bird bird;
+    private final PipeField pipes;
+    private final Random rand;  // pipe gaps of the current game
+    private final Random seeds; // seeds of the following games
+    private long seed;
+    private Listener listener = NO_LISTENER;
+    private boolean pixelPerfectCollisions = false;
+
+    // Game state
+    private int score = 0;
+    private boolean gameOver = false;
+    private boolean gameStarted = false;
+    private boolean nightModeActive = false;
+    private long tickCount = 0;
+
+    public GameWorld() {
+        this(NUM_PIPES, PIPE_SPACING);
+    }
+
+    /**
+     * Creates a world with a custom pipe layout, e.g. for long or dense
+     * endless courses in batch simulations.
+     */
+    public GameWorld(int pipeCount, int pipeSpacing) {
+        this(pipeCount, pipeSpacing, new Random().nextLong());
+    }
+
+    /**
+     * Creates a world whose pipe gaps come from the given seed, so every
+     * world built with the same seed plays the same course.
+     */
+    public GameWorld(long seed) {
+        this(NUM_PIPES, PIPE_SPACING, seed);
+    }
+
+    public GameWorld(int pipeCount, int pipeSpacing, long seed) {
+        this.seed = seed;
+        rand = new Random(seed);
+        seeds = new Random(~seed);
+        bird = new Bird(WIDTH, HEIGHT);
+        pipes = new PipeField(pipeCount, pipeSpacing, rand);
+        pipes.reset(WIDTH);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : NO_LISTENER;
+    }
+
+    /**
+     * Tests pipe hits against the sprites' alpha instead of the forgiving
+     * hitbox. Off by default; turning it on loads the bird and pipe images.
+     */
+    public void setPixelPerfectCollisions(boolean pixelPerfectCollisions) {
+        this.pixelPerfectCollisions = pixelPerfectCollisions;
+    }
+
+    /**
+     * Advances the simulation by one tick. Does nothing until the game has
+     * been started and after the bird has died.
+     */
+    public void tick() {
+        // A tick must not allocate: everything below works on primitives
+        bird.savePreviousPosition();
+        pipes.savePreviousPositions();
+        if (gameOver || !gameStarted) {
+            return;
+        }
+        tickCount++;
+        bird.update();
+
+        pipes.update();
+
+        // Check for scoring; pipes are ordered left to right, so stop at the
+        // first one the bird hasn't passed yet
+        for (int i = 0; i < pipes.size() && pipes.getX(i) + Pipe.PIPE_WIDTH < bird.getX(); i++) {
+            if (!pipes.isScored(i)) {
+                score++;
+                pipes.setScored(i, true);
+                listener.onScore(score);
+
+                // Activate night mode
+                if (score >= NIGHT_MODE_SCORE && !nightModeActive) {
+                    nightModeActive = true;
+                    listener.onNightMode();
+                }
+            }
+        }
+
+        checkCollisions();
+    }
+
+    /**
+     * Advances only the idle wing animation, as used on the home screen.
+     */
+    public void idle() {
+        bird.savePreviousPosition();
+        bird.animate();
+    }
+
+    /**
+     * Makes the bird flap, starting the game if it has not started yet.
+     * Ignored once the game is over.
+     */
+    public void flap() {
+        if (gameOver) {
+            return;
+        }
+        gameStarted = true;
+        bird.jump();
+        listener.onFlap();
+    }
+
+    public void start() {
+        gameStarted = true;
+    }
+
+    void checkCollisions() {
+        // Ground collision
+        if (bird.getY() + bird.getHeight() >= GROUND_COLLISION_Y) {
+            die(false);
+            return;
+        }
+
+        // Ceiling collision
+        if (bird.getY() <= 0) {
+            die(false);
+            return;
+        }
+
+        // Pipe collision
+        if (hitsPipe()) {
+            die(true);
+        }
+    }
+
+    private boolean hitsPipe() {
+        if (pixelPerfectCollisions) {
+            CollisionMask mask = bird.getCollisionMask();
+            if (mask != null) {
+                return pipes.overlaps(mask, bird.getCollisionMaskX(), bird.getCollisionMaskY());
+            }
+        }
+        return pipes.intersects(bird.getHitboxX(), bird.getHitboxY(),
+                bird.getHitboxWidth(), bird.getHitboxHeight());
+    }
+
+    private void die(boolean hitPipe) {
+        if (!gameOver) {
+            gameOver = true;
+            listener.onDeath(hitPipe);
+        }
+    }
+
+    /**
+     * Starts a new game with the next seed from this world's seed sequence.
+     */
+    public void reset() {
+        reset(seeds.nextLong());
+    }
+
+    /**
+     * Starts a new game whose course comes from the given seed.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        rand.setSeed(seed);
+        gameOver = false;
+        gameStarted = false;
+        nightModeActive = false;
+        score = 0;
+        tickCount = 0;
+        bird.reset(WIDTH, HEIGHT);
+        pipes.reset(WIDTH);
+    }
+
+    /**
+     * Makes this world an exact copy of the other one, including the state of
+     * its random source, so both continue identically. The other world must
+     * have the same pipe layout. Listeners are not copied.
+     */
+    public void copyFrom(GameWorld other) {
+        rand.setSeed(other.seed);
+        for (long i = 0; i < other.pipes.getGapsDrawn(); i++) {
+            Pipe.randomGapY(rand);
+        }
+        copyStateFrom(other);
+    }
+
+    /**
+     * Copies everything that is drawn but leaves the random source alone, so
+     * it is cheap enough to run every tick. The copy is only meant to be
+     * looked at: stepping it would not continue the other world's course.
+     */
+    public void copyStateFrom(GameWorld other) {
+        seed = other.seed;
+        bird.copyFrom(other.bird);
+        pipes.copyFrom(other.pipes);
+        pixelPerfectCollisions = other.pixelPerfectCollisions;
+        score = other.score;
+        gameOver = other.gameOver;
+        gameStarted = other.gameStarted;
+        nightModeActive = other.nightModeActive;
+        tickCount = other.tickCount;
+    }
+
+    /**
+     * Returns an independent copy of this world, e.g. a replay checkpoint.
+     */
+    public GameWorld snapshot() {
+        GameWorld copy = new GameWorld(pipes.size(), pipes.getSpacing(), seed);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /** Seed of the current game's course. */
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isPixelPerfectCollisions() {
+        return pixelPerfectCollisions;
+    }
+
+    public Bird getBird() {
+        return bird;
+    }
+
+    public PipeField getPipes() {
+        return pipes;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public boolean isNightModeActive() {
+        return nightModeActive;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+}
@@ -6,76 +6,132 @@ package com.mycompany.flappybird;
  */
 
 import java.awt.Graphics;
-import java.awt.Image;
-import java.io.IOException;
-import java.net.URL;
-import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
+/**
+ * The scrolling ground. The tile is repeated once into a strip a tile wider
+ * than the screen, so drawing is a single blit of the strip shifted left by
+ * the scroll offset, which wraps every tile width.
+ */
 public class Ground {
-    private Image groundImageDay;
-    private Image groundImageNight;
-    private int[] xPositions;
+    private BufferedImage stripDay;
+    private BufferedImage stripNight;
     private int tileWidth;
-    private int numTiles;
-    private double speed = 4;
+    private double speed = Pipe.SPEED; // Moves with the pipes
+    private double scroll = 0; // How far the strip is shifted left, [0, tileWidth)
+    private double lastShift = 0; // How far the strip moved in the last tick
     private int yPosition;
+    private int tileHeight;
     private boolean nightMode = false;
 
+    private static final int FALLBACK_TILE_WIDTH = 37;
+    private static final int FALLBACK_TILE_HEIGHT = 128;
+
     public Ground(int screenWidth, int screenHeight) {
-        try {
-            // Load day ground
-            URL dayResource = getClass().getResource("/assets/ground.png");
-            groundImageDay = ImageIO.read(dayResource);
-            
-            // Load night ground
-            URL nightResource = getClass().getResource("/assets/groundNight.png");
-            groundImageNight = ImageIO.read(nightResource);
-            
-            // Use day ground as default
-            tileWidth = groundImageDay.getWidth(null);
-            yPosition = screenHeight - groundImageDay.getHeight(null) - 35;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        BufferedImage groundImageDay = AssetCache.getImage("/assets/images/ground.png");
+        BufferedImage groundImageNight = AssetCache.getImage("/assets/images/groundNight.png");
+
+        // Use day ground as default
+        tileWidth = groundImageDay != null ? groundImageDay.getWidth() : FALLBACK_TILE_WIDTH;
+        tileHeight = groundImageDay != null ? groundImageDay.getHeight() : FALLBACK_TILE_HEIGHT;
+        yPosition = screenHeight - tileHeight - GameWorld.GROUND_MARGIN;
+
+        int tiles = (screenWidth + tileWidth - 1) / tileWidth + 1;
+        stripDay = buildStrip(groundImageDay, tiles);
+        stripNight = buildStrip(groundImageNight, tiles);
+    }
+
+    private Ground(Ground other) {
+        stripDay = other.stripDay;
+        stripNight = other.stripNight;
+        tileWidth = other.tileWidth;
+        tileHeight = other.tileHeight;
+        yPosition = other.yPosition;
+        copyFrom(other);
+    }
+
+    /** Returns a copy that shares this ground's strips. */
+    public Ground snapshot() {
+        return new Ground(this);
+    }
+
+    /**
+     * Copies the scroll state of a ground built for the same screen, e.g.
+     * one of its snapshots.
+     */
+    public void copyFrom(Ground other) {
+        speed = other.speed;
+        scroll = other.scroll;
+        lastShift = other.lastShift;
+        nightMode = other.nightMode;
+    }
 
-        // Initialize tile positions
-        numTiles = (screenWidth / tileWidth) + 4;
-        xPositions = new int[numTiles];
-        for (int i = 0; i < numTiles; i++) {
-            xPositions[i] = i * tileWidth;
+    private BufferedImage buildStrip(BufferedImage tile, int tiles) {
+        if (tile == null) {
+            return null;
         }
+        BufferedImage strip = AssetCache.createCompatibleImage(tiles * tileWidth, tileHeight,
+                tile.getColorModel().getTransparency());
+        Graphics2D g2d = strip.createGraphics();
+        for (int i = 0; i < tiles; i++) {
+            g2d.drawImage(tile, i * tileWidth, 0, null);
+        }
+        g2d.dispose();
+        return strip;
     }
     
     public void setNightMode(boolean nightMode) {
         this.nightMode = nightMode;
     }
 
-    public void update() {
-        for (int i = 0; i < numTiles; i++) {
-            xPositions[i] -= speed;
+    /**
+     * Pixels per tick; set to the pipes' speed so both scroll together. May
+     * be negative to scroll the other way.
+     */
+    public void setSpeed(double speed) {
+        if (!Double.isFinite(speed)) {
+            throw new IllegalArgumentException("Ground speed must be finite: " + speed);
         }
+        this.speed = speed;
+    }
 
-        // Wrap tiles that move off-screen
-        for (int i = 0; i < numTiles; i++) {
-            if (xPositions[i] + tileWidth <= 0) {
-                int maxX = Integer.MIN_VALUE;
-                for (int x : xPositions) {
-                    if (x > maxX) {
-                        maxX = x;
-                    }
-                }
-                xPositions[i] = maxX + tileWidth;
-            }
+    /**
+     * Marks the start of a tick; if update() is not called the ground is
+     * drawn without interpolation.
+     */
+    public void savePreviousPosition() {
+        lastShift = 0;
+    }
+
+    public void update() {
+        lastShift = speed;
+        scroll += speed;
+        if (scroll >= tileWidth || scroll < 0) {
+            scroll -= Math.floor(scroll / tileWidth) * tileWidth;
         }
     }
 
+    /** Top of the strip draw() covers; it spans the whole width. */
+    public int getY() {
+        return yPosition;
+    }
+
+    public int getHeight() {
+        return tileHeight;
+    }
+
     public void draw(Graphics g) {
-        Image currentGround = nightMode ? groundImageNight : groundImageDay;
-        if (currentGround != null) {
-            for (int i = 0; i < numTiles; i++) {
-                g.drawImage(currentGround, xPositions[i], yPosition, null);
-            }
+        draw(g, 1.0);
+    }
+
+    public void draw(Graphics g, double alpha) {
+        BufferedImage strip = nightMode ? stripNight : stripDay;
+        if (strip != null) {
+            // The strip was lastShift further right at the previous tick
+            // Interpolating can cross a wrap either way; keep x in (-tileWidth, 0]
+            int x = -Math.floorMod(Math.round(scroll - lastShift * (1 - alpha)), tileWidth);
+            g.drawImage(strip, x, yPosition, null);
         }
     }
-}
\ No newline at end of file
+}
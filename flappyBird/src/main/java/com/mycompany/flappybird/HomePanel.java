@@ -6,98 +6,163 @@ package com.mycompany.flappybird;
  */
 
 import javax.swing.JPanel;
-import javax.swing.Timer;
+import java.awt.BorderLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Font;
 import java.awt.Color;
 import java.awt.RenderingHints;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.Image;
-import java.io.IOException;
-import java.net.URL;
-import javax.imageio.ImageIO;
 
-public class HomePanel extends JPanel implements KeyListener, ActionListener {
+public class HomePanel extends JPanel implements KeyListener, GameLoop.Callbacks, RenderCanvas.Renderer {
+    private GameWorld world;
     private Background background;
     private Ground ground;
-    private Bird bird;
     private Runnable startGameCallback;
     private Image titleImage;
-    private Timer animationTimer;
+    private GameLoop animationLoop;
+    private RenderCanvas canvas; // null when using Swing painting
     private Font pixelFont; // Added pixel font
+    private TextRenderer.Label titleLabel;
+    private TextRenderer.Label instructionLabel;
+    // The loop thread publishes the bird and ground after every tick, so
+    // frames never lock the world
+    private final TripleBuffer<WorldSnapshot> snapshots;
+    private long snapshotSequence; // loop thread only
+    private WorldSnapshot view; // snapshot being drawn, render thread only
+    private final LogicalCanvas logical = new LogicalCanvas();
+    private final DirtyRegionRenderer dirtyRenderer =
+            DirtyRegionRenderer.isEnabled() ? new DirtyRegionRenderer("home") : null;
+    private final DirtyRegionRenderer.Scene scene = this::drawScene;
+    private double sceneAlpha; // alpha of the frame being drawn, render thread only
     
-    private static final int PANEL_WIDTH = 480;
-    private static final int PANEL_HEIGHT = 854;
+    private static final int PANEL_WIDTH = GameWorld.WIDTH;
+    private static final int PANEL_HEIGHT = GameWorld.HEIGHT;
+    private static final String LOGO_PATH = "/assets/images/logo.png";
+    private static final int LOGO_WIDTH = 280;
+    private static final Color TITLE_GOLD = new Color(255, 215, 0);
 
     public HomePanel(Runnable startGameCallback) {
         this.startGameCallback = startGameCallback;
         
+        world = new GameWorld();
+        Bird.loadSpriteSheet();
         background = new Background();
         ground = new Ground(PANEL_WIDTH, PANEL_HEIGHT);
-        bird = new Bird(PANEL_WIDTH, PANEL_HEIGHT);
+        snapshots = new TripleBuffer<>(() -> new WorldSnapshot(world, ground));
+        publishSnapshot(System.nanoTime());
         
         // Load custom pixel font
-        try {
-            URL fontUrl = getClass().getResource("/assets/fonts/pixel-font.ttf");
-            Font baseFont = Font.createFont(Font.TRUETYPE_FONT, fontUrl.openStream());
+        Font baseFont = AssetCache.getFont(StartupLoader.FONT_PATH);
+        if (baseFont != null) {
             pixelFont = baseFont.deriveFont(32f); // Base size for title
-        } catch (Exception e) {
+        } else {
             System.err.println("Error loading pixel font, using fallback");
             pixelFont = new Font("Arial", Font.BOLD, 32); // Fallback font
         }
         
+        // Pre-render the static text once
+        TextRenderer text = new TextRenderer(pixelFont);
+        titleLabel = text.createLabel("FLAPPY BIRD", 48f, TITLE_GOLD, Color.BLACK, 3);
+        instructionLabel = text.createLabel("PRESS SPACE TO START", 16f, Color.WHITE, Color.BLACK, 2);
+        
         setFocusable(true);
         addKeyListener(this);
+        if (RenderCanvas.isActiveRenderingEnabled()) {
+            canvas = new RenderCanvas(this);
+            canvas.addKeyListener(this);
+            setLayout(new BorderLayout());
+            add(canvas, BorderLayout.CENTER);
+        }
         
-        animationTimer = new Timer(30, this);
-        animationTimer.start();
+        animationLoop = new GameLoop("home", this);
+        animationLoop.start();
         
-        loadImages();
+        titleImage = loadTitleImage();
         SoundManager.startBackgroundMusic();
     }
     
-    private void loadImages() {
-        try {
-            URL logoResource = getClass().getResource("/assets/images/logo.png");
-            if (logoResource != null) {
-                titleImage = ImageIO.read(logoResource);
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading images: " + e.getMessage());
+    private static Image loadTitleImage() {
+        // Scale the logo to 280px wide once, keeping its aspect ratio
+        Image logo = AssetCache.getImage(LOGO_PATH);
+        if (logo == null) {
+            return null;
         }
+        int logoHeight = (int)((double)LOGO_WIDTH * logo.getHeight(null) / logo.getWidth(null));
+        return AssetCache.getScaledImage(LOGO_PATH, LOGO_WIDTH, logoHeight);
     }
     
     @Override
-    public void actionPerformed(ActionEvent e) {
-        bird.animate();
+    public void update() {
+        world.idle();
+        ground.savePreviousPosition();
         ground.update();
-        repaint();
+        publishSnapshot(animationLoop.getTickNanos());
+    }
+
+    private void publishSnapshot(long tickNanos) {
+        snapshots.getBack().copyFrom(world, ground, background, tickNanos, 0, snapshotSequence++);
+        snapshots.publish();
+    }
+    
+    @Override
+    public void render(double alpha) {
+        // renderFrame takes the alpha of the snapshot it draws instead
+        if (canvas != null) {
+            canvas.present();
+        } else {
+            repaint();
+        }
+    }
+    
+    @Override
+    public boolean requestFocusInWindow() {
+        return canvas != null ? canvas.requestFocusInWindow() : super.requestFocusInWindow();
     }
     
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+        if (canvas == null) {
+            renderFrame((Graphics2D) g);
+        }
+    }
+    
+    @Override
+    public void renderFrame(Graphics2D g2d) {
+        StartupLoader.markFrame("home screen");
+        view = snapshots.acquire();
+        sceneAlpha = animationLoop.getAlpha(view.getTickNanos());
+        if (dirtyRenderer != null) {
+            // Only the bird's wings and the ground move here
+            Bird bird = view.getWorld().getBird();
+            Ground viewGround = view.getGround();
+            int birdSize = Bird.getDrawSize();
+            dirtyRenderer.add(bird.getDrawX(sceneAlpha), bird.getDrawY(sceneAlpha), birdSize, birdSize);
+            dirtyRenderer.add(0, viewGround.getY(), PANEL_WIDTH, viewGround.getHeight());
+            logical.present(g2d, getWidth(), getHeight(), dirtyRenderer.render(PANEL_WIDTH, PANEL_HEIGHT, scene));
+        } else {
+            drawScene(logical.beginFrame(g2d, getWidth(), getHeight()));
+            logical.endFrame(g2d);
+        }
+    }
+    
+    private void drawScene(Graphics2D g2d) {
+        Graphics g = g2d;
         
         // General anti-aliasing for graphics
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         
-        background.draw(g, getWidth(), getHeight());
-        ground.draw(g);
-        bird.draw(g);
+        background.draw(g, PANEL_WIDTH, PANEL_HEIGHT);
+        view.getGround().draw(g, sceneAlpha);
+        view.getWorld().getBird().draw(g, sceneAlpha);
 
         if (titleImage != null) {
-            int originalWidth = titleImage.getWidth(null);
-            int originalHeight = titleImage.getHeight(null);
-            int logoWidth = 280;
-            int logoHeight = (int)((double)logoWidth * originalHeight / originalWidth);
-            int logoX = (getWidth() - logoWidth) / 2;
-            int logoY = getHeight() / 5;
-            g.drawImage(titleImage, logoX, logoY, logoWidth, logoHeight, null);
+            int logoX = (PANEL_WIDTH - titleImage.getWidth(null)) / 2;
+            int logoY = PANEL_HEIGHT / 5;
+            g.drawImage(titleImage, logoX, logoY, null);
         } else {
             drawFallbackTitle(g2d);
         }
@@ -106,46 +171,12 @@ public class HomePanel extends JPanel implements KeyListener, ActionListener {
     }
     
     private void drawFallbackTitle(Graphics2D g2d) {
-        // Set pixel font with custom size
-        Font titleFont = pixelFont.deriveFont(48f);
-        g2d.setFont(titleFont);
-        
-        // Configure text rendering for pixel perfection
-        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, 
-                           RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
-        
-        String title = "FLAPPY BIRD";
-        int titleWidth = g2d.getFontMetrics().stringWidth(title);
-        
-        // Text shadow
-        g2d.setColor(Color.BLACK);
-        g2d.drawString(title, (getWidth() - titleWidth)/2 + 3, getHeight()/4 + 3);
-        
-        // Main text
-        g2d.setColor(new Color(255, 215, 0)); // Gold color
-        g2d.drawString(title, (getWidth() - titleWidth)/2, getHeight()/4);
+        titleLabel.drawCentered(g2d, PANEL_WIDTH, PANEL_HEIGHT/4);
     }
     
     private void drawInstructions(Graphics2D g2d) {
-        // Set smaller pixel font size
-        Font instructionFont = pixelFont.deriveFont(16f);
-        g2d.setFont(instructionFont);
-        
-        // Maintain pixel-perfect text rendering
-        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                           RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
-        
-        String instruction = "PRESS SPACE TO START";
-        int textWidth = g2d.getFontMetrics().stringWidth(instruction);
         int yPosition = PANEL_HEIGHT - 120; // Adjusted position
-        
-        // Text shadow
-        g2d.setColor(Color.BLACK);
-        g2d.drawString(instruction, (getWidth() - textWidth)/2 + 2, yPosition + 2);
-        
-        // Main text
-        g2d.setColor(Color.WHITE);
-        g2d.drawString(instruction, (getWidth() - textWidth)/2, yPosition);
+        instructionLabel.drawCentered(g2d, PANEL_WIDTH, yPosition);
     }
 
     @Override
@@ -156,7 +187,10 @@ public class HomePanel extends JPanel implements KeyListener, ActionListener {
     }
 
     private void startGame() {
-        animationTimer.stop();
+        animationLoop.stop();
+        if (dirtyRenderer != null) {
+            dirtyRenderer.reportStats();
+        }
         SoundManager.stopBackgroundMusic();
         if (startGameCallback != null) {
             startGameCallback.run();
@@ -164,8 +198,8 @@ public class HomePanel extends JPanel implements KeyListener, ActionListener {
     }
 
     public void resumeAnimation() {
-        if (!animationTimer.isRunning()) {
-            animationTimer.start();
+        if (!animationLoop.isRunning()) {
+            animationLoop.start();
         }
         SoundManager.startBackgroundMusic();
     }
@@ -0,0 +1,77 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Input events captured on the EDT with a System.nanoTime() timestamp and
+ * handed to the loop thread, which applies them at the start of the next
+ * tick. Single producer, single consumer, lock-free and allocation-free.
+ * Events that arrive while the queue is full are dropped and counted.
+ */
+public class InputQueue {
+    public static final int FLAP = 1;
+    // Replay playback controls
+    public static final int SEEK_BACK = 2;
+    public static final int SEEK_FORWARD = 3;
+    public static final int SLOWER = 4;
+    public static final int FASTER = 5;
+
+    private final int mask;
+    private final int[] types;
+    private final long[] times;
+    // Next slot to write (producer) and to read (consumer)
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Capacity must be a power of two. */
+    public InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        types = new int[capacity];
+        times = new long[capacity];
+    }
+
+    /** Called by the producer thread only. Returns false if the event was dropped. */
+    public boolean offer(int type, long nanoTime) {
+        long position = tail.get();
+        if (position - head.getAcquire() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) position & mask;
+        types[slot] = type;
+        times[slot] = nanoTime;
+        tail.setRelease(position + 1);
+        return true;
+    }
+
+    /** Called by the consumer thread only. Whether an event is ready to read. */
+    public boolean hasNext() {
+        return head.get() != tail.getAcquire();
+    }
+
+    public int peekType() {
+        return types[(int) head.get() & mask];
+    }
+
+    public long peekTime() {
+        return times[(int) head.get() & mask];
+    }
+
+    /** Called by the consumer thread only, after reading the head event. */
+    public void remove() {
+        head.setRelease(head.get() + 1);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
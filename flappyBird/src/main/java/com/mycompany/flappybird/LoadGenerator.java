@@ -0,0 +1,157 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Opens many client connections to a local GameServer and plays on all of
+ * them from one selector thread. Each client decodes its bird's height from
+ * the state deltas and flaps whenever the bird falls below the middle of the
+ * screen, so the server sees a steady stream of inputs.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.LoadGenerator 10000 60 [port]
+ *
+ * connects 10000 clients, plays for 60 s and prints throughput and the time
+ * from sending a flap to receiving the tick that applied it.
+ */
+public class LoadGenerator {
+    private static final long REPORT_NANOS = 5_000_000_000L;
+    private static final int CONNECT_BATCH = 500;
+    private static final int FLAP_BELOW_Y = ServerProtocol.toFixed(GameWorld.HEIGHT / 2.0);
+
+    private final LatencyHistogram flapLatency = new LatencyHistogram("client flap to applied");
+    private long messages;
+    private long bytes;
+    private long resets;
+    private long deaths;
+    private int connected;
+
+    /** One simulated player. */
+    private static final class Client {
+        final ByteBuffer input = ByteBuffer.allocate(4096);
+        final ByteBuffer flap = ByteBuffer.wrap(new byte[] {ServerProtocol.FLAP});
+        int y;
+        long flapSentNanos; // 0 when no flap is waiting to be applied
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadGenerator <sessions> [seconds] [port]");
+            System.exit(2);
+        }
+        int sessions = Integer.parseInt(args[0]);
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : ServerProtocol.DEFAULT_PORT;
+        new LoadGenerator().run(sessions, seconds, port);
+    }
+
+    public void run(int sessions, long seconds, int port) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        try (Selector selector = Selector.open()) {
+            int opened = 0;
+            long start = System.nanoTime();
+            long end = start + seconds * 1_000_000_000L;
+            long lastReport = start;
+            long lastMessages = 0;
+            long lastBytes = 0;
+            while (System.nanoTime() - end < 0) {
+                // Connect gradually so the accept backlog never overflows
+                for (int i = 0; i < CONNECT_BATCH && opened < sessions && opened - connected < CONNECT_BATCH; i++) {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    channel.connect(address);
+                    channel.register(selector, SelectionKey.OP_CONNECT, new Client());
+                    opened++;
+                }
+
+                selector.select(100);
+                long now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isConnectable()) {
+                            ((SocketChannel) key.channel()).finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                            connected++;
+                        } else if (key.isReadable()) {
+                            read(key, now);
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Client connection failed: " + e.getMessage());
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+
+                if (now - lastReport >= REPORT_NANOS) {
+                    double elapsed = (now - lastReport) / 1e9;
+                    System.out.printf("clients: %d connected, %.0f msgs/s, %.1f KB/s, %d games, %d deaths, %s%n",
+                            connected, (messages - lastMessages) / elapsed, (bytes - lastBytes) / elapsed / 1024,
+                            resets, deaths, flapLatency);
+                    flapLatency.reset();
+                    lastReport = now;
+                    lastMessages = messages;
+                    lastBytes = bytes;
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        }
+    }
+
+    private void read(SelectionKey key, long now) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+        int read = channel.read(client.input);
+        if (read < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        bytes += read;
+        client.input.flip();
+        boolean flap = false;
+        while (ServerProtocol.hasMessage(client.input)) {
+            int flags = client.input.get();
+            if ((flags & ServerProtocol.RESET) != 0) {
+                client.input.getLong(); // Seed; the course isn't needed here
+                client.y = 0;
+                client.flapSentNanos = 0;
+                resets++;
+            }
+            client.y += (int) ServerProtocol.getZigZag(client.input);
+            if ((flags & ServerProtocol.NEW_PIPE) != 0) {
+                Replay.readVarLong(client.input);
+            }
+            if ((flags & ServerProtocol.FLAPPED) != 0 && client.flapSentNanos != 0) {
+                flapLatency.record(now - client.flapSentNanos);
+                client.flapSentNanos = 0;
+            }
+            if ((flags & ServerProtocol.DIED) != 0) {
+                deaths++;
+            }
+            messages++;
+            flap = client.y > FLAP_BELOW_Y && client.flapSentNanos == 0;
+        }
+        client.input.compact();
+        if (flap) {
+            client.flap.clear();
+            channel.write(client.flap);
+            client.flapSentNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+
+import javax.swing.JPanel;
+
+/**
+ * Shown while StartupLoader runs. Uses only a system font and plain shapes so
+ * it can paint before any asset has loaded.
+ */
+public class LoadingPanel extends JPanel {
+    private static final Color BACKGROUND = new Color(78, 192, 202);
+    private static final Color BAR_BACKGROUND = new Color(0, 0, 0, 100);
+    private static final Color BAR = new Color(255, 215, 0);
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.BOLD, 24);
+    private static final int BAR_WIDTH = 280;
+    private static final int BAR_HEIGHT = 16;
+
+    private final StartupLoader loader;
+
+    public LoadingPanel(StartupLoader loader) {
+        this.loader = loader;
+        setBackground(BACKGROUND);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        StartupLoader.markFrame("loading screen");
+
+        g.setFont(FONT);
+        g.setColor(Color.WHITE);
+        FontMetrics metrics = g.getFontMetrics();
+        String text = "LOADING...";
+        g.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2, getHeight() / 2 - 20);
+
+        int barX = (getWidth() - BAR_WIDTH) / 2;
+        int barY = getHeight() / 2;
+        g.setColor(BAR_BACKGROUND);
+        g.fillRect(barX, barY, BAR_WIDTH, BAR_HEIGHT);
+        int total = loader.getTaskCount();
+        if (total > 0) {
+            g.setColor(BAR);
+            g.fillRect(barX, barY, BAR_WIDTH * loader.getCompleted() / total, BAR_HEIGHT);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Back buffer at the game's logical resolution (GameWorld.WIDTH x HEIGHT).
+ * Panels draw every frame into it in logical coordinates, and it is scaled
+ * to the window once, centered with black bars. Sprites are never scaled
+ * per draw, and the simulation never sees window pixels.
+ *
+ * Scaling is worked out in device pixels, so HiDPI screens get the full
+ * resolution. -Dflappybird.scaling picks the mode:
+ *   auto    (default) whole multiples with nearest-neighbour for crisp
+ *           pixel art, unless that would leave more than a fifth of the
+ *           window unused; then a smooth fit
+ *   integer always whole multiples (at least 1)
+ *   fit     always fill as much as the aspect ratio allows, smoothly
+ */
+public class LogicalCanvas {
+    public static final int WIDTH = GameWorld.WIDTH;
+    public static final int HEIGHT = GameWorld.HEIGHT;
+
+    private static final String SCALING = System.getProperty("flappybird.scaling", "auto");
+    private static final double MAX_INTEGER_LOSS = 0.2;
+    private static final Color BARS = Color.BLACK;
+
+    private final BufferedImage buffer =
+            AssetCache.createCompatibleImage(WIDTH, HEIGHT, Transparency.OPAQUE);
+    private final Graphics2D bufferGraphics = buffer.createGraphics();
+    private final AffineTransform deviceTransform = new AffineTransform();
+
+    // Placement of the last frame, in device pixels
+    private AffineTransform userTransform;
+    private Shape userClip;
+    private int x;
+    private int y;
+    private int scaledWidth;
+    private int scaledHeight;
+    private boolean integer;
+    private boolean direct;
+
+    /**
+     * Starts a frame on a target of width x height and returns the graphics
+     * to draw it on in logical coordinates, then call endFrame(). When the
+     * window shows the game at exactly 1:1 this is the target itself, moved
+     * to the game's area, so the frame skips the back buffer altogether.
+     */
+    public Graphics2D beginFrame(Graphics2D target, int width, int height) {
+        layout(target, width, height);
+        direct = scaledWidth == WIDTH && scaledHeight == HEIGHT;
+        if (direct) {
+            userClip = target.getClip();
+            target.translate(x, y);
+            target.clipRect(0, 0, WIDTH, HEIGHT);
+            return target;
+        }
+        target.setTransform(userTransform);
+        return bufferGraphics;
+    }
+
+    /** Finishes a frame started with beginFrame(). */
+    public void endFrame(Graphics2D target) {
+        if (direct) {
+            target.setTransform(userTransform);
+            target.setClip(userClip);
+            userClip = null;
+        } else {
+            present(target, buffer);
+        }
+    }
+
+    /**
+     * Scales a finished logical-size frame onto a target of width x height,
+     * e.g. a frame kept by DirtyRegionRenderer.
+     */
+    public void present(Graphics2D target, int width, int height, BufferedImage frame) {
+        layout(target, width, height);
+        present(target, frame);
+    }
+
+    private void present(Graphics2D target, BufferedImage frame) {
+        target.setTransform(deviceTransform);
+        target.setRenderingHint(RenderingHints.KEY_INTERPOLATION, integer
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        if (scaledWidth == WIDTH && scaledHeight == HEIGHT) {
+            target.drawImage(frame, x, y, null);
+        } else {
+            target.drawImage(frame, x, y, scaledWidth, scaledHeight, null);
+        }
+        target.setTransform(userTransform);
+    }
+
+    /**
+     * Works out where the frame goes on the target and fills the bars
+     * around it. Leaves the target in device pixels: the HiDPI scale is
+     * dropped but the offset kept.
+     */
+    private void layout(Graphics2D target, int width, int height) {
+        userTransform = target.getTransform();
+        int deviceWidth = Math.max(1, (int) Math.round(width * userTransform.getScaleX()));
+        int deviceHeight = Math.max(1, (int) Math.round(height * userTransform.getScaleY()));
+        deviceTransform.setToTranslation(userTransform.getTranslateX(), userTransform.getTranslateY());
+        target.setTransform(deviceTransform);
+
+        double fit = Math.min((double) deviceWidth / WIDTH, (double) deviceHeight / HEIGHT);
+        int whole = (int) fit;
+        integer = switch (SCALING) {
+            case "integer" -> true;
+            case "fit" -> fit == whole;
+            default -> whole >= 1 && (fit - whole) / fit <= MAX_INTEGER_LOSS;
+        };
+        if (integer) {
+            whole = Math.max(1, whole);
+            scaledWidth = WIDTH * whole;
+            scaledHeight = HEIGHT * whole;
+        } else {
+            scaledWidth = Math.max(1, (int) Math.round(WIDTH * fit));
+            scaledHeight = Math.max(1, (int) Math.round(HEIGHT * fit));
+        }
+        x = (deviceWidth - scaledWidth) / 2;
+        y = (deviceHeight - scaledHeight) / 2;
+
+        target.setColor(BARS);
+        if (x > 0) {
+            target.fillRect(0, 0, x, deviceHeight);
+            target.fillRect(x + scaledWidth, 0, deviceWidth - x - scaledWidth, deviceHeight);
+        }
+        if (y > 0) {
+            target.fillRect(0, 0, deviceWidth, y);
+            target.fillRect(0, y + scaledHeight, deviceWidth, deviceHeight - y - scaledHeight);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+/**
+ * Running min/mean/max/standard deviation of a series of nanosecond samples.
+ * Recorded by the loop thread and safe to read from any other thread.
+ */
+public class LoopStats {
+    private final String name;
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public LoopStats(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long nanos) {
+        count++;
+        sum += nanos;
+        sumOfSquares += (double) nanos * nanos;
+        if (nanos < min) {
+            min = nanos;
+        }
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : sum / count / 1_000_000.0;
+    }
+
+    public synchronized double getMaxMillis() {
+        return max / 1_000_000.0;
+    }
+
+    public synchronized double getStdDevMillis() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / count;
+        double variance = Math.max(0, sumOfSquares / count - mean * mean);
+        return Math.sqrt(variance) / 1_000_000.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (count == 0) {
+            return name + ": no samples";
+        }
+        return String.format("%s: n=%d min=%.3fms avg=%.3fms sd=%.3fms max=%.3fms",
+                name, count, min / 1_000_000.0, getMeanMillis(), getStdDevMillis(), getMaxMillis());
+    }
+}
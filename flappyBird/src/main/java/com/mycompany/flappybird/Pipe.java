@@ -6,81 +6,88 @@ package com.mycompany.flappybird;
  */
 
 import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.Rectangle;
-import java.io.IOException;
-import java.net.URL;
+import java.awt.image.BufferedImage;
 import java.util.Random;
-import javax.imageio.ImageIO;
 
-public class Pipe {
-    private static final int SPEED = 2;
-    private static final int GAP = 200; // Space for the bird to pass
-    private static final int PIPE_WIDTH = 70;
-    private static final int PIPE_HEIGHT = (int)(PIPE_WIDTH * (793.0 / 138.0)); // keep aspect ratio
-
-    private int x;
-    private int topPipeHeight;  // y position of bottom of top pipe (gap start)
-    private Image pipeTopImage;
-    private Image pipeBottomImage;
-    private Random rand;
-    private boolean scored = false; // Track if this pipe has been scored
+/**
+ * Pipe geometry, sprites and collision tests. Pipe positions themselves live
+ * in a PipeField as primitive arrays, so a pipe here is just an x position
+ * plus the y position of its gap.
+ */
+public final class Pipe {
+    static final int SPEED = 2;
+    static final int GAP = 200; // Space for the bird to pass
+    static final int PIPE_WIDTH = 70;
+    static final int PIPE_HEIGHT = (int)(PIPE_WIDTH * (793.0 / 138.0)); // keep aspect ratio
+    // Range of the gap's top edge (bottom of the top pipe)
+    static final int MIN_GAP_Y = 150;
+    static final int GAP_Y_RANGE = 200;
 
-    public Pipe(int startX) {
-        x = startX;
-        rand = new Random();
-        topPipeHeight = rand.nextInt(200) + 150; // random vertical gap position
+    // Shared by all pipes and loaded lazily so the simulation stays headless
+    private static BufferedImage pipeTopImage;
+    private static BufferedImage pipeBottomImage;
+    private static CollisionMask pipeTopMask;
+    private static CollisionMask pipeBottomMask;
+    private static volatile boolean imagesLoaded = false;
 
-        try {
-            URL topResource = getClass().getResource("/assets/images/pipe_top.png");  // flipped pipe image
-            pipeTopImage = ImageIO.read(topResource);
+    private Pipe() {}
 
-            URL bottomResource = getClass().getResource("/assets/images/pipe_bottom.png");  // normal pipe image
-            pipeBottomImage = ImageIO.read(bottomResource);
-        } catch (IOException e) {
-            e.printStackTrace();
+    static synchronized void loadImages() {
+        if (imagesLoaded) {
+            return;
+        }
+        // Pre-scaled to on-screen size so drawing is a 1:1 blit
+        pipeTopImage = AssetCache.getScaledImage("/assets/images/pipe_top.png", PIPE_WIDTH, PIPE_HEIGHT);  // flipped pipe image
+        pipeBottomImage = AssetCache.getScaledImage("/assets/images/pipe_bottom.png", PIPE_WIDTH, PIPE_HEIGHT);  // normal pipe image
+        if (pipeTopImage != null && pipeBottomImage != null) {
+            pipeTopMask = CollisionMask.fromAlpha(pipeTopImage);
+            pipeBottomMask = CollisionMask.fromAlpha(pipeBottomImage);
         }
+        imagesLoaded = true;
     }
 
-    public void update() {
-        x -= SPEED;
+    /**
+     * Picks a random y position for the gap (bottom of the top pipe).
+     */
+    static int randomGapY(Random rand) {
+        return rand.nextInt(GAP_Y_RANGE) + MIN_GAP_Y;
     }
 
-    public void draw(Graphics g) {
+    public static void draw(Graphics g, int x, int topPipeHeight) {
+        if (!imagesLoaded) {
+            loadImages();
+        }
         if (pipeTopImage == null || pipeBottomImage == null) return;
 
         // Draw top pipe
-        g.drawImage(pipeTopImage, x, topPipeHeight - PIPE_HEIGHT, PIPE_WIDTH, PIPE_HEIGHT, null);
+        g.drawImage(pipeTopImage, x, topPipeHeight - PIPE_HEIGHT, null);
 
         // Draw bottom pipe
-        g.drawImage(pipeBottomImage, x, topPipeHeight + GAP, PIPE_WIDTH, PIPE_HEIGHT, null);
+        g.drawImage(pipeBottomImage, x, topPipeHeight + GAP, null);
     }
     
-    public Rectangle[] getBounds() {
-        Rectangle topPipe = new Rectangle(x, topPipeHeight - PIPE_HEIGHT, PIPE_WIDTH, PIPE_HEIGHT);
-        Rectangle bottomPipe = new Rectangle(x, topPipeHeight + GAP, PIPE_WIDTH, PIPE_HEIGHT);
-        return new Rectangle[]{topPipe, bottomPipe};
-    }
-
-    public int getX() {
-        return x;
+    /**
+     * Allocation-free test of a box against both halves of a pipe.
+     */
+    public static boolean intersects(int x, int topPipeHeight, int boxX, int boxY, int boxWidth, int boxHeight) {
+        return CollisionMask.intersects(boxX, boxY, boxWidth, boxHeight,
+                    x, topPipeHeight - PIPE_HEIGHT, PIPE_WIDTH, PIPE_HEIGHT)
+                || CollisionMask.intersects(boxX, boxY, boxWidth, boxHeight,
+                    x, topPipeHeight + GAP, PIPE_WIDTH, PIPE_HEIGHT);
     }
 
-    public int getWidth() {
-        return PIPE_WIDTH;
-    }
-    
-    public boolean isScored() {
-        return scored;
-    }
-    
-    public void setScored(boolean scored) {
-        this.scored = scored;
-    }
-
-    public void reset(int newX) {
-        x = newX;
-        topPipeHeight = rand.nextInt(200) + 150;  // new random vertical gap position
-        scored = false; // Reset scoring flag
+    /**
+     * Pixel-accurate test of a mask drawn at (maskX, maskY) against the pipe
+     * sprites. Falls back to the pipe rectangles if the images are missing.
+     */
+    public static boolean overlaps(int x, int topPipeHeight, CollisionMask mask, int maskX, int maskY) {
+        if (!imagesLoaded) {
+            loadImages();
+        }
+        if (pipeTopMask == null || pipeBottomMask == null) {
+            return intersects(x, topPipeHeight, maskX, maskY, mask.getWidth(), mask.getHeight());
+        }
+        return mask.overlaps(maskX, maskY, pipeTopMask, x, topPipeHeight - PIPE_HEIGHT)
+                || mask.overlaps(maskX, maskY, pipeBottomMask, x, topPipeHeight + GAP);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Graphics;
+import java.util.Random;
+
+/**
+ * All pipes in play, stored as primitive arrays and managed as a ring buffer.
+ * Pipes are kept in left-to-right order starting at head, so the rightmost
+ * (tail) pipe is always known and recycling the leftmost pipe is O(1). Any
+ * pipe count and spacing work, and nothing allocates after construction.
+ *
+ * Pipes are addressed by their order on screen: index 0 is the leftmost.
+ */
+public class PipeField {
+    private final int count;
+    private final int spacing;
+    private final int[] x;
+    private final int[] previousX;
+    private final int[] topPipeHeight;  // y position of bottom of top pipe (gap start)
+    private final boolean[] scored;
+    private final Random rand;
+    private int head = 0; // physical slot of the leftmost pipe
+    private int speed = Pipe.SPEED;
+    private long gapsDrawn = 0; // values taken from rand, so its state can be rebuilt
+
+    public PipeField(int count, int spacing, Random rand) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Pipe count must be positive: " + count);
+        }
+        if (spacing <= 0) {
+            // Recycled pipes would never get back on the screen
+            throw new IllegalArgumentException("Pipe spacing must be positive: " + spacing);
+        }
+        this.count = count;
+        this.spacing = spacing;
+        this.rand = rand;
+        x = new int[count];
+        previousX = new int[count];
+        topPipeHeight = new int[count];
+        scored = new boolean[count];
+    }
+
+    /**
+     * Lines the pipes up from firstX at the configured spacing with new gaps.
+     */
+    public void reset(int firstX) {
+        head = 0;
+        gapsDrawn = 0;
+        for (int i = 0; i < count; i++) {
+            x[i] = firstX + i * spacing;
+            previousX[i] = x[i];
+            topPipeHeight[i] = nextGap();
+            scored[i] = false;
+        }
+    }
+
+    private int nextGap() {
+        gapsDrawn++;
+        return Pipe.randomGapY(rand);
+    }
+
+    /**
+     * How many gaps have been drawn from the random source since it was last
+     * seeded; drawing as many again from a freshly seeded source restores it.
+     */
+    public long getGapsDrawn() {
+        return gapsDrawn;
+    }
+
+    /**
+     * Makes the layout an exact copy of the other field, which must have the
+     * same size. The random source is not touched; see GameWorld.copyFrom.
+     */
+    public void copyFrom(PipeField other) {
+        if (other.count != count) {
+            throw new IllegalArgumentException("Pipe counts differ: " + other.count + " != " + count);
+        }
+        System.arraycopy(other.x, 0, x, 0, count);
+        System.arraycopy(other.previousX, 0, previousX, 0, count);
+        System.arraycopy(other.topPipeHeight, 0, topPipeHeight, 0, count);
+        System.arraycopy(other.scored, 0, scored, 0, count);
+        head = other.head;
+        speed = other.speed;
+        gapsDrawn = other.gapsDrawn;
+    }
+
+    public void savePreviousPositions() {
+        System.arraycopy(x, 0, previousX, 0, count);
+    }
+
+    /**
+     * Scrolls every pipe left and moves pipes that left the screen to the
+     * right of the tail with a new gap.
+     */
+    public void update() {
+        for (int i = 0; i < count; i++) {
+            x[i] -= speed;
+        }
+        while (x[head] + Pipe.PIPE_WIDTH < 0) {
+            int tail = slot(count - 1);
+            x[head] = x[tail] + spacing;
+            previousX[head] = x[head]; // Don't interpolate across the recycle jump
+            topPipeHeight[head] = nextGap();
+            scored[head] = false;
+            head = slot(1);
+        }
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= count ? slot - count : slot;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getSpacing() {
+        return spacing;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
+    public int getX(int index) {
+        return x[slot(index)];
+    }
+
+    /** Where draw(g, alpha, width) puts the pipe at the given index. */
+    public int getDrawX(int index, double alpha) {
+        int s = slot(index);
+        return (int) Math.round(previousX[s] + (x[s] - previousX[s]) * alpha);
+    }
+
+    public int getTopPipeHeight(int index) {
+        return topPipeHeight[slot(index)];
+    }
+
+    public boolean isScored(int index) {
+        return scored[slot(index)];
+    }
+
+    public void setScored(int index, boolean value) {
+        scored[slot(index)] = value;
+    }
+
+    public int getTailX() {
+        return x[slot(count - 1)];
+    }
+
+    /**
+     * Index of the first pipe whose right edge is not yet behind the given x,
+     * or -1 if every pipe is behind it.
+     */
+    public int nextPipe(double fromX) {
+        for (int i = 0; i < count; i++) {
+            if (getX(i) + Pipe.PIPE_WIDTH >= fromX) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Pipes are sorted by x, so the collision tests stop at the first pipe
+    // that starts right of the box instead of scanning the whole field
+
+    public boolean intersects(int boxX, int boxY, int boxWidth, int boxHeight) {
+        for (int i = 0; i < count; i++) {
+            int s = slot(i);
+            if (x[s] >= boxX + boxWidth) {
+                break;
+            }
+            if (Pipe.intersects(x[s], topPipeHeight[s], boxX, boxY, boxWidth, boxHeight)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean overlaps(CollisionMask mask, int maskX, int maskY) {
+        for (int i = 0; i < count; i++) {
+            int s = slot(i);
+            if (x[s] >= maskX + mask.getWidth()) {
+                break;
+            }
+            if (Pipe.intersects(x[s], topPipeHeight[s], maskX, maskY, mask.getWidth(), mask.getHeight())
+                    && Pipe.overlaps(x[s], topPipeHeight[s], mask, maskX, maskY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the pipes that are on screen, interpolated between their previous
+     * and current tick position.
+     */
+    public void draw(Graphics g, double alpha, int screenWidth) {
+        for (int i = 0; i < count; i++) {
+            int drawX = (int) Math.round(previousX[i] + (x[i] - previousX[i]) * alpha);
+            if (drawX < screenWidth && drawX + Pipe.PIPE_WIDTH > 0) {
+                Pipe.draw(g, drawX, topPipeHeight[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Canvas for active rendering: frames are drawn into a BufferStrategy and
+ * presented exactly when the game loop calls present(), instead of going
+ * through repaint() and letting Swing coalesce or delay them.
+ *
+ * Active rendering is the default; start with -Dflappybird.render=swing to use
+ * the passive paintComponent path for comparison.
+ */
+public class RenderCanvas extends Canvas {
+    private static final int BUFFER_COUNT = 2;
+
+    public interface Renderer {
+        void renderFrame(Graphics2D g2d);
+    }
+
+    private final Renderer renderer;
+
+    public RenderCanvas(Renderer renderer) {
+        this.renderer = renderer;
+        setIgnoreRepaint(true); // We present frames ourselves
+        setFocusable(true);
+    }
+
+    public static boolean isActiveRenderingEnabled() {
+        return !"swing".equalsIgnoreCase(System.getProperty("flappybird.render", "active"));
+    }
+
+    /**
+     * Renders one frame into the back buffer and shows it, redrawing if the
+     * buffer contents were lost or restored in the meantime.
+     *
+     * @return false if the canvas is not on screen yet and nothing was drawn
+     */
+    public boolean present() {
+        if (!isDisplayable() || getWidth() <= 0 || getHeight() <= 0) {
+            return false;
+        }
+        BufferStrategy strategy = getBufferStrategy();
+        try {
+            if (strategy == null) {
+                createBufferStrategy(BUFFER_COUNT);
+                strategy = getBufferStrategy();
+            }
+            do {
+                do {
+                    Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        renderer.renderFrame(g2d);
+                    } finally {
+                        g2d.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+        } catch (IllegalStateException e) {
+            // Canvas was removed from the window while we were drawing
+            return false;
+        }
+        // Flush the window system's queue so the frame appears now
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A recorded game: the course seed plus the tick on which every flap
+ * happened. GameWorld is deterministic, so this is enough to re-simulate the
+ * whole game. The score and length are kept too, so a replay can be checked
+ * against what the re-simulation produces.
+ *
+ * Binary form, all integers after the seed as unsigned LEB128 varints:
+ *
+ *   version (1 byte), flags (1 byte, bit 0 = pixel-perfect collisions),
+ *   seed (8 bytes, big-endian), score, ticks, flap count,
+ *   then each flap tick as the difference from the previous one
+ *
+ * A typical game of a few hundred flaps encodes to a few hundred bytes.
+ * Replays assume the standard pipe layout (NUM_PIPES at PIPE_SPACING).
+ */
+public final class Replay {
+    static final int VERSION = 1;
+    private static final int FLAG_PIXEL_PERFECT = 1;
+
+    private final long seed;
+    private final boolean pixelPerfectCollisions;
+    private final int score;
+    private final long ticks;
+    private final long[] flapTicks;
+
+    public Replay(long seed, boolean pixelPerfectCollisions, int score, long ticks, long[] flapTicks) {
+        this.seed = seed;
+        this.pixelPerfectCollisions = pixelPerfectCollisions;
+        this.score = score;
+        this.ticks = ticks;
+        this.flapTicks = flapTicks;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isPixelPerfectCollisions() {
+        return pixelPerfectCollisions;
+    }
+
+    /** Score the game ended with when it was recorded. */
+    public int getScore() {
+        return score;
+    }
+
+    /** Ticks the game ran for when it was recorded. */
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getFlapCount() {
+        return flapTicks.length;
+    }
+
+    /** Tick on which the i-th flap happened, in ascending order. */
+    public long getFlapTick(int i) {
+        return flapTicks[i];
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + flapTicks.length * 2);
+        out.write(VERSION);
+        out.write(pixelPerfectCollisions ? FLAG_PIXEL_PERFECT : 0);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (seed >>> shift));
+        }
+        writeVarLong(out, score);
+        writeVarLong(out, ticks);
+        writeVarLong(out, flapTicks.length);
+        long previous = 0;
+        for (long tick : flapTicks) {
+            writeVarLong(out, tick - previous);
+            previous = tick;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads one replay from the buffer's position, leaving the position just
+     * after it.
+     */
+    public static Replay decode(ByteBuffer in) {
+        try {
+            int version = in.get() & 0xff;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported replay version " + version);
+            }
+            int flags = in.get();
+            long seed = in.getLong();
+            long score = readVarLong(in);
+            long ticks = readVarLong(in);
+            long flapCount = readVarLong(in);
+            if (score < 0 || score > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Corrupt replay: score " + score);
+            }
+            if (ticks < 0) {
+                throw new IllegalArgumentException("Corrupt replay: " + ticks + " ticks");
+            }
+            // Every flap takes at least one byte
+            if (flapCount < 0 || flapCount > in.remaining()) {
+                throw new IllegalArgumentException("Corrupt replay: " + flapCount + " flaps");
+            }
+            long[] flapTicks = new long[(int) flapCount];
+            long tick = 0;
+            for (int i = 0; i < flapTicks.length; i++) {
+                long delta = readVarLong(in);
+                tick += delta;
+                if (delta < 0 || tick < 0) {
+                    throw new IllegalArgumentException("Corrupt replay: flap " + i + " out of range");
+                }
+                flapTicks[i] = tick;
+            }
+            return new Replay(seed, (flags & FLAG_PIXEL_PERFECT) != 0, (int) score, ticks, flapTicks);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated replay", e);
+        }
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+}
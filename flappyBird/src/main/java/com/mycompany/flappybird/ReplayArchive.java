@@ -0,0 +1,151 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of replays: a 4-byte magic, then every replay as a varint
+ * length followed by its Replay encoding. Reading memory-maps the file in
+ * large windows and decodes straight from the mapping, so scanning thousands
+ * of replays costs little more than touching their bytes.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.ReplayArchive replays.fbr
+ *
+ * prints a summary of an archive.
+ */
+public final class ReplayArchive {
+    private static final byte[] MAGIC = {'F', 'B', 'R', 'A'};
+    // Replays are a few KB at most, so a window always holds many of them
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private ReplayArchive() {}
+
+    /**
+     * Appends the replay to the archive, creating the file if needed. Safe to
+     * call from several threads; appends are serialized.
+     */
+    public static synchronized void append(Path file, Replay replay) throws IOException {
+        byte[] encoded = replay.encode();
+        ByteArrayOutputStream record = new ByteArrayOutputStream(encoded.length + 9);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (channel.size() == 0) {
+                record.write(MAGIC);
+            }
+            Replay.writeVarLong(record, encoded.length);
+            record.write(encoded);
+            ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Decodes every replay in the archive in order. A record cut short at the
+     * end of the file (an interrupted append) ends the scan quietly; returns
+     * how many bytes at the end were left over that way, 0 if none.
+     */
+    public static long forEach(Path file, Consumer<Replay> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAGIC.length) {
+                return size;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, MAGIC.length);
+            for (byte b : MAGIC) {
+                if (header.get() != b) {
+                    throw new IOException("Not a replay archive: " + file);
+                }
+            }
+
+            long position = MAGIC.length;
+            while (position < size) {
+                long windowSize = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                boolean lastWindow = position + windowSize == size;
+                int consumed = readRecords(window, action, file);
+                if (consumed == 0) {
+                    if (lastWindow) {
+                        return size - position; // Truncated final record
+                    }
+                    throw new IOException("Replay record larger than " + WINDOW_BYTES + " bytes in " + file);
+                }
+                position += consumed;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Decodes the whole records in the window and returns how many bytes
+     * they took.
+     */
+    private static int readRecords(ByteBuffer window, Consumer<Replay> action, Path file) throws IOException {
+        int consumed = 0;
+        while (window.hasRemaining()) {
+            long length;
+            try {
+                length = Replay.readVarLong(window);
+            } catch (BufferUnderflowException e) {
+                break; // Length prefix runs past the window
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt replay length in " + file, e);
+            }
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt replay length " + length + " in " + file);
+            }
+            if (length > window.remaining()) {
+                break;
+            }
+            int end = window.position() + (int) length;
+            ByteBuffer record = window.slice(window.position(), (int) length);
+            action.accept(Replay.decode(record));
+            window.position(end);
+            consumed = end;
+        }
+        return consumed;
+    }
+
+    public static List<Replay> readAll(Path file) throws IOException {
+        List<Replay> replays = new ArrayList<>();
+        forEach(file, replays::add);
+        return replays;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ReplayArchive <archive>");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        long[] count = new long[1];
+        long[] ticks = new long[1];
+        long[] flaps = new long[1];
+        int[] best = new int[1];
+        long start = System.nanoTime();
+        forEach(file, replay -> {
+            count[0]++;
+            ticks[0] += replay.getTicks();
+            flaps[0] += replay.getFlapCount();
+            best[0] = Math.max(best[0], replay.getScore());
+        });
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.printf("%d replays, %d ticks, %d flaps, best score %d, scanned in %.2f ms%n",
+                count[0], ticks[0], flaps[0], best[0], millis);
+    }
+}
@@ -0,0 +1,134 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-simulates a Replay on a GameWorld at any speed. Every checkpointInterval
+ * ticks a snapshot of the world is kept, so seeking restores the nearest
+ * earlier snapshot and only simulates the remaining ticks. Game events go to
+ * the listener during normal playback but not while seeking.
+ */
+public class ReplayPlayer {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 300; // about 10 s of play
+
+    private final Replay replay;
+    private final GameWorld world;
+    private final GameWorld.Listener listener;
+    private final int checkpointInterval;
+    // checkpoints.get(i) is the world after tick i * checkpointInterval
+    private final List<GameWorld> checkpoints = new ArrayList<>();
+    private int nextFlap;
+    private double pendingTicks;
+
+    public ReplayPlayer(Replay replay, GameWorld world, GameWorld.Listener listener) {
+        this(replay, world, listener, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public ReplayPlayer(Replay replay, GameWorld world, GameWorld.Listener listener, int checkpointInterval) {
+        this.replay = replay;
+        this.world = world;
+        this.listener = listener;
+        this.checkpointInterval = checkpointInterval;
+        restart();
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /** Puts the world back at the start of the replay. */
+    public void restart() {
+        world.setListener(listener);
+        world.reset(replay.getSeed());
+        world.setPixelPerfectCollisions(replay.isPixelPerfectCollisions());
+        world.start();
+        nextFlap = 0;
+        pendingTicks = 0;
+        if (checkpoints.isEmpty()) {
+            checkpoints.add(world.snapshot());
+        }
+    }
+
+    public boolean isFinished() {
+        return world.isGameOver() || world.getTickCount() >= replay.getTicks();
+    }
+
+    /**
+     * Applies the flaps recorded for the current tick and steps the world
+     * once. Returns false when the replay has already ended.
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        long tick = world.getTickCount();
+        while (nextFlap < replay.getFlapCount() && replay.getFlapTick(nextFlap) == tick) {
+            world.flap();
+            nextFlap++;
+        }
+        world.tick();
+        long now = world.getTickCount();
+        if (now % checkpointInterval == 0 && now / checkpointInterval == checkpoints.size()) {
+            checkpoints.add(world.snapshot());
+        }
+        return true;
+    }
+
+    /**
+     * Steps as many ticks as speed says (e.g. 0.5 steps every other call,
+     * 4 steps four times) and returns how many were stepped.
+     */
+    public int advance(double speed) {
+        pendingTicks += speed;
+        int stepped = 0;
+        while (pendingTicks >= 1) {
+            pendingTicks--;
+            if (!step()) {
+                pendingTicks = 0;
+                break;
+            }
+            stepped++;
+        }
+        return stepped;
+    }
+
+    /**
+     * Moves playback to the given tick (clamped to the replay), restoring the
+     * closest checkpoint at or before it and simulating silently from there.
+     */
+    public void seek(long tick) {
+        long target = Math.max(0, Math.min(tick, replay.getTicks()));
+        int checkpoint = (int) Math.min(target / checkpointInterval, checkpoints.size() - 1);
+        long checkpointTick = (long) checkpoint * checkpointInterval;
+        if (target < world.getTickCount() || checkpointTick > world.getTickCount()) {
+            world.copyFrom(checkpoints.get(checkpoint));
+            nextFlap = firstFlapAtOrAfter(checkpointTick);
+        }
+        world.setListener(null);
+        while (world.getTickCount() < target && step()) {
+            // Simulate up to the target
+        }
+        world.setListener(listener);
+        pendingTicks = 0;
+    }
+
+    private int firstFlapAtOrAfter(long tick) {
+        int low = 0;
+        int high = replay.getFlapCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (replay.getFlapTick(mid) < tick) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.util.Arrays;
+
+/**
+ * Collects the flaps of the game being played. Call start() when the game
+ * starts, recordFlap() from the thread stepping the world on every flap, and
+ * finish() once it is over. Reuses its buffer, so recording allocates only
+ * while a game sets a new record for flaps.
+ */
+public class ReplayRecorder {
+    private long seed;
+    private boolean pixelPerfectCollisions;
+    private long[] flapTicks = new long[256];
+    private int flapCount;
+    private boolean recording;
+
+    public void start(GameWorld world) {
+        seed = world.getSeed();
+        pixelPerfectCollisions = world.isPixelPerfectCollisions();
+        flapCount = 0;
+        recording = true;
+    }
+
+    public void recordFlap(long tick) {
+        if (!recording) {
+            return;
+        }
+        if (flapCount == flapTicks.length) {
+            flapTicks = Arrays.copyOf(flapTicks, flapCount * 2);
+        }
+        flapTicks[flapCount++] = tick;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Stops recording and returns the game so far, or null if nothing is
+     * being recorded.
+     */
+    public Replay finish(GameWorld world) {
+        if (!recording) {
+            return null;
+        }
+        recording = false;
+        return new Replay(seed, pixelPerfectCollisions, world.getScore(), world.getTickCount(),
+                Arrays.copyOf(flapTicks, flapCount));
+    }
+}
@@ -0,0 +1,280 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch checker for submitted scores. Every replay is re-simulated headlessly
+ * on a GameWorld with the game's own physics and the default hitbox
+ * collisions, and is accepted only if the bird dies on exactly the recorded
+ * tick with exactly the recorded score, with no flaps left over. Replays
+ * recorded with pixel-perfect collisions are rejected: those depend on how
+ * the sprites were rendered, so they would not check out the same everywhere.
+ *
+ * The archives are streamed: the main thread decodes replays from the mapped
+ * files into batches, and one worker per core validates them on its own
+ * reused world. The queue between them is bounded, so memory use does not
+ * depend on the size of the input.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.ReplayValidator
+ *        [--threads n] [--show-rejected 10] replays.fbr...
+ *
+ * Input that cannot be checked fails the batch too: files that cannot be
+ * read, corrupt records (the rest of that file is skipped) and records cut
+ * short at the end of a file are counted as unreadable. Exits with status 1
+ * if any replay was rejected or any input was unreadable.
+ */
+public class ReplayValidator {
+    private static final int BATCH_SIZE = 256;
+    private static final Batch END = new Batch(-1);
+
+    public enum Verdict {
+        ACCEPTED("accepted"),
+        DIED_EARLY("bird died before the recorded end"),
+        STILL_ALIVE("bird still alive at the recorded end"),
+        FLAPS_AFTER_END("flaps recorded after the end"),
+        SCORE_MISMATCH("score differs from the recorded one"),
+        WRONG_RULES("recorded with pixel-perfect collisions"),
+        FAILED("simulation failed");
+
+        private final String description;
+
+        Verdict(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /** Thrown when every worker has died, so queueing would block forever. */
+    private static final class NoWorkersException extends RuntimeException {
+        NoWorkersException() {
+            super("Every validator thread has stopped");
+        }
+    }
+
+    private static final class Batch {
+        final long firstIndex; // position of the first replay across all input
+        final List<Replay> replays = new ArrayList<>(BATCH_SIZE);
+
+        Batch(long firstIndex) {
+            this.firstIndex = firstIndex;
+        }
+    }
+
+    private final GameWorld world = new GameWorld(0L);
+    private long simulatedTicks;
+
+    /**
+     * Re-simulates the replay and says whether it holds up. Not thread-safe:
+     * use one validator per thread.
+     */
+    public Verdict validate(Replay replay) {
+        // One ruleset for every submission: the hitbox tests give the same
+        // result on any machine, the sprite masks do not
+        if (replay.isPixelPerfectCollisions()) {
+            return Verdict.WRONG_RULES;
+        }
+        world.setListener(null);
+        world.reset(replay.getSeed());
+        world.setPixelPerfectCollisions(false);
+        world.start();
+
+        // A bird that stops flapping hits the ground within a few seconds, so
+        // the simulation is bounded by the flaps actually recorded
+        int nextFlap = 0;
+        int flapCount = replay.getFlapCount();
+        long end = replay.getTicks();
+        while (!world.isGameOver() && world.getTickCount() < end) {
+            long tick = world.getTickCount();
+            while (nextFlap < flapCount && replay.getFlapTick(nextFlap) == tick) {
+                world.flap();
+                nextFlap++;
+            }
+            world.tick();
+        }
+        simulatedTicks += world.getTickCount();
+
+        if (!world.isGameOver()) {
+            return Verdict.STILL_ALIVE;
+        }
+        if (world.getTickCount() < end) {
+            return Verdict.DIED_EARLY;
+        }
+        if (nextFlap < flapCount) {
+            return Verdict.FLAPS_AFTER_END;
+        }
+        if (world.getScore() != replay.getScore()) {
+            return Verdict.SCORE_MISMATCH;
+        }
+        return Verdict.ACCEPTED;
+    }
+
+    public long getSimulatedTicks() {
+        return simulatedTicks;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int showRejected = 10;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--show-rejected" -> showRejected = Integer.parseInt(args[++i]);
+                default -> files.add(Path.of(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: ReplayValidator [--threads n] [--show-rejected n] <archive>...");
+            System.exit(2);
+        }
+
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(threads * 4);
+        long[][] counts = new long[threads][Verdict.values().length];
+        long[] ticks = new long[threads];
+        List<String> rejected = new ArrayList<>();
+        int rejectedLimit = showRejected;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                ReplayValidator validator = new ReplayValidator();
+                try {
+                    for (Batch batch = queue.take(); batch != END; batch = queue.take()) {
+                        for (int i = 0; i < batch.replays.size(); i++) {
+                            Replay replay = batch.replays.get(i);
+                            Verdict verdict;
+                            try {
+                                verdict = validator.validate(replay);
+                            } catch (RuntimeException e) {
+                                System.err.println("Replay #" + (batch.firstIndex + i) + " failed: " + e);
+                                verdict = Verdict.FAILED;
+                            }
+                            counts[worker][verdict.ordinal()]++;
+                            if (verdict != Verdict.ACCEPTED) {
+                                synchronized (rejected) {
+                                    if (rejected.size() < rejectedLimit) {
+                                        rejected.add(String.format("#%d seed %016x score %d: %s",
+                                                batch.firstIndex + i, replay.getSeed(), replay.getScore(),
+                                                verdict.getDescription()));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ticks[worker] = validator.getSimulatedTicks();
+            }, "replay-validator-" + t);
+            // Never keep the JVM alive if main fails
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+        long start = System.nanoTime();
+        Batch[] batch = {new Batch(0)};
+        long[] read = {0};
+        int unreadableFiles = 0;
+        long truncatedRecords = 0;
+        try {
+            for (Path file : files) {
+                try {
+                    long leftover = ReplayArchive.forEach(file, replay -> {
+                        batch[0].replays.add(replay);
+                        read[0]++;
+                        if (batch[0].replays.size() == BATCH_SIZE) {
+                            put(queue, batch[0], workers);
+                            batch[0] = new Batch(read[0]);
+                        }
+                    });
+                    if (leftover > 0) {
+                        truncatedRecords++;
+                        System.err.println("Truncated record at the end of " + file + ": " + leftover + " bytes");
+                    }
+                } catch (NoWorkersException e) {
+                    throw e;
+                } catch (IOException | RuntimeException e) {
+                    unreadableFiles++;
+                    System.err.println("Could not read " + file + ": " + e);
+                }
+            }
+            if (!batch[0].replays.isEmpty()) {
+                put(queue, batch[0], workers);
+            }
+        } finally {
+            // Always release the workers, or they would wait forever
+            try {
+                for (int t = 0; t < threads; t++) {
+                    put(queue, END, workers);
+                }
+            } catch (NoWorkersException e) {
+                // Nobody left to stop
+            }
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] total = new long[Verdict.values().length];
+        long totalTicks = 0;
+        for (int t = 0; t < threads; t++) {
+            for (int v = 0; v < total.length; v++) {
+                total[v] += counts[t][v];
+            }
+            totalTicks += ticks[t];
+        }
+        long validated = read[0];
+        long rejectedCount = validated - total[Verdict.ACCEPTED.ordinal()];
+        System.out.printf("%d replays validated on %d threads in %.2f s: %.0f runs/s (%.0f runs/min), %.1fM ticks/s%n",
+                validated, threads, seconds, validated / seconds, 60 * validated / seconds, totalTicks / seconds / 1e6);
+        for (Verdict verdict : Verdict.values()) {
+            if (total[verdict.ordinal()] > 0) {
+                System.out.printf("  %-40s %d%n", verdict.getDescription(), total[verdict.ordinal()]);
+            }
+        }
+        if (unreadableFiles > 0 || truncatedRecords > 0) {
+            System.out.printf("  %-40s %d%n", "unreadable or corrupt files", unreadableFiles);
+            System.out.printf("  %-40s %d%n", "truncated records", truncatedRecords);
+        }
+        for (String line : rejected) {
+            System.out.println("  rejected " + line);
+        }
+        if (rejectedCount > 0 || unreadableFiles > 0 || truncatedRecords > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Queues the batch, waiting while the workers catch up. Throws
+     * NoWorkersException instead of waiting forever if they have all died.
+     */
+    private static void put(BlockingQueue<Batch> queue, Batch batch, Thread[] workers) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (Arrays.stream(workers).noneMatch(Thread::isAlive)) {
+                    throw new NoWorkersException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing replays", e);
+        }
+    }
+}
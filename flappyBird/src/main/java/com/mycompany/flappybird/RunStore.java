@@ -0,0 +1,379 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent history of every finished run, as an append-only log of fixed
+ * 32-byte records in a memory-mapped file:
+ *
+ *   header (64 bytes): magic, version, committed record count
+ *   record: score (int), ticks (int), seed (long), timestamp (long, epoch
+ *           millis), reserved (int), CRC32C of the preceding 28 bytes (int)
+ *
+ * An append writes the record past the end and then publishes it by bumping
+ * the count, all under an exclusive file lock, so several game instances
+ * (or threads) can share one file. Timestamps never go backwards within a
+ * file, which keeps the log sorted by time: a day's runs are one contiguous
+ * range found by binary search. The best scores are kept in a sorted index
+ * of one long per run that is caught up with the log before each query.
+ *
+ * A crash can at worst leave the last records torn; opening the store drops
+ * committed records whose checksum does not match from the end.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.RunStore runs.fbs
+ *
+ * prints the best runs and today's runs.
+ */
+public final class RunStore implements AutoCloseable {
+    private static final int MAGIC = 0x46425253; // "FBRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_BYTES = 32;
+    private static final int CHECKED_BYTES = 28;
+    private static final long INITIAL_CAPACITY = 4096;
+
+    // Atomic access to the count, which other processes update in place
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    // FileLock is per process, so threads of one process also queue here
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    /** One finished run. */
+    public static final class Run {
+        private final int score;
+        private final int ticks;
+        private final long seed;
+        private final long timestamp;
+
+        Run(int score, int ticks, long seed, long timestamp) {
+            this.score = score;
+            this.ticks = ticks;
+            this.seed = seed;
+            this.timestamp = timestamp;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getTicks() {
+            return ticks;
+        }
+
+        public double getSeconds() {
+            return ticks / GameLoop.TICKS_PER_SECOND;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /** When the run was stored, in epoch milliseconds. */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("score %d, %.1f s, seed %016x, %tF %<tT", score, getSeconds(), seed, timestamp);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Object processLock;
+    private final CRC32C crc = new CRC32C();
+    private final byte[] checked = new byte[CHECKED_BYTES];
+    private MappedByteBuffer map;
+    private int recovered;
+
+    // Score index: (score << 32 | ~index) sorted ascending, best runs last
+    private long[] byScore = new long[1024];
+    private int indexed;
+
+    private RunStore(Path file) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        processLock = PROCESS_LOCKS.computeIfAbsent(this.file, key -> new Object());
+        channel = FileChannel.open(this.file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens the store, creating it if needed and dropping torn records left
+     * by a crash.
+     */
+    public static RunStore open(Path file) throws IOException {
+        RunStore store = new RunStore(file);
+        try {
+            store.initialize();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void initialize() throws IOException {
+        synchronized (processLock) {
+            FileLock lock = channel.lock();
+            try {
+                if (channel.size() < HEADER_BYTES) {
+                    grow(INITIAL_CAPACITY);
+                    map.putInt(0, MAGIC);
+                    map.putInt(4, VERSION);
+                    LONGS.setRelease(map, COUNT_OFFSET, 0L);
+                } else {
+                    remap(channel.size());
+                    if (map.getInt(0) != MAGIC) {
+                        throw new IOException("Not a run store: " + file);
+                    }
+                    if (map.getInt(4) != VERSION) {
+                        throw new IOException("Unsupported run store version " + map.getInt(4) + ": " + file);
+                    }
+                }
+                recover();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Drops committed records from the end that were never fully written.
+     */
+    private void recover() {
+        long count = Math.min(committedCount(), capacity());
+        long valid = count;
+        while (valid > 0 && !checksumMatches(valid - 1)) {
+            valid--;
+        }
+        if (valid != committedCount()) {
+            recovered = (int) (committedCount() - valid);
+            LONGS.setRelease(map, COUNT_OFFSET, valid);
+            System.err.println("Run store " + file + ": dropped " + recovered + " damaged records");
+        }
+    }
+
+    /** How many damaged records opening the store dropped. */
+    public int getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends a run stamped with the current time, or the latest stored
+     * time if the clock went backwards. Safe to call from any thread and
+     * from several processes sharing the file.
+     */
+    public synchronized Run append(int score, long ticks, long seed) throws IOException {
+        synchronized (processLock) {
+            FileLock lock = channel.lock(0, HEADER_BYTES, false);
+            try {
+                long count = committedCount();
+                if (count >= capacity()) {
+                    grow(Math.max(INITIAL_CAPACITY, count * 2));
+                }
+                long timestamp = System.currentTimeMillis();
+                if (count > 0) {
+                    timestamp = Math.max(timestamp, timestampAt(count - 1));
+                }
+                int offset = recordOffset(count);
+                map.putInt(offset, score);
+                map.putInt(offset + 4, (int) Math.min(ticks, Integer.MAX_VALUE));
+                map.putLong(offset + 8, seed);
+                map.putLong(offset + 16, timestamp);
+                map.putInt(offset + 24, 0);
+                map.putInt(offset + CHECKED_BYTES, checksum(offset));
+                // Publishing the count is the commit
+                LONGS.setRelease(map, COUNT_OFFSET, count + 1);
+                return new Run(score, (int) Math.min(ticks, Integer.MAX_VALUE), seed, timestamp);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /** Number of runs stored, including ones other processes appended. */
+    public synchronized long size() throws IOException {
+        return refresh();
+    }
+
+    /** The best n runs, best first; ties go to the earlier run. */
+    public synchronized List<Run> top(int n) throws IOException {
+        refresh();
+        List<Run> runs = new ArrayList<>(Math.min(n, indexed));
+        for (int i = indexed - 1; i >= 0 && runs.size() < n; i--) {
+            runs.add(runAt(~(int) byScore[i]));
+        }
+        return runs;
+    }
+
+    /** Every run stored on the given day in the given zone, oldest first. */
+    public synchronized List<Run> runsOn(LocalDate day, ZoneId zone) throws IOException {
+        long count = refresh();
+        long from = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        List<Run> runs = new ArrayList<>();
+        for (long i = firstAtOrAfter(from, count); i < count && timestampAt(i) < to; i++) {
+            runs.add(runAt(i));
+        }
+        return runs;
+    }
+
+    /** The best score stored on the given day, or 0 if there were no runs. */
+    public synchronized int bestOn(LocalDate day, ZoneId zone) throws IOException {
+        long count = refresh();
+        long from = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        int best = 0;
+        for (long i = firstAtOrAfter(from, count); i < count && timestampAt(i) < to; i++) {
+            best = Math.max(best, map.getInt(recordOffset(i)));
+        }
+        return best;
+    }
+
+    /**
+     * Maps records other writers added and adds every new run to the score
+     * index. Returns the committed count.
+     */
+    private long refresh() throws IOException {
+        long count = committedCount();
+        if (recordOffset(count) > map.capacity()) {
+            remap(channel.size());
+        }
+        if (count > indexed) {
+            if (count > byScore.length) {
+                byScore = Arrays.copyOf(byScore, (int) Math.max(count, byScore.length * 2L));
+            }
+            boolean bulk = count - indexed > 64;
+            for (int i = indexed; i < count; i++) {
+                long key = (long) map.getInt(recordOffset(i)) << 32 | (~i & 0xFFFFFFFFL);
+                if (bulk) {
+                    byScore[i] = key;
+                } else {
+                    int at = Arrays.binarySearch(byScore, 0, i, key);
+                    at = at < 0 ? -at - 1 : at;
+                    System.arraycopy(byScore, at, byScore, at + 1, i - at);
+                    byScore[at] = key;
+                }
+            }
+            if (bulk) {
+                Arrays.sort(byScore, 0, (int) count);
+            }
+            indexed = (int) count;
+        }
+        return count;
+    }
+
+    private long firstAtOrAfter(long timestamp, long count) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestampAt(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Run runAt(long index) {
+        int offset = recordOffset(index);
+        return new Run(map.getInt(offset), map.getInt(offset + 4), map.getLong(offset + 8), map.getLong(offset + 16));
+    }
+
+    private long timestampAt(long index) {
+        return map.getLong(recordOffset(index) + 16);
+    }
+
+    private long committedCount() {
+        return (long) LONGS.getAcquire(map, COUNT_OFFSET);
+    }
+
+    private long capacity() {
+        return (map.capacity() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    private static int recordOffset(long index) {
+        return Math.toIntExact(HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+    private boolean checksumMatches(long index) {
+        int offset = recordOffset(index);
+        return map.getInt(offset + CHECKED_BYTES) == checksum(offset);
+    }
+
+    private int checksum(int offset) {
+        crc.reset();
+        map.get(offset, checked);
+        crc.update(checked);
+        return (int) crc.getValue();
+    }
+
+    /** Extends the file to hold the given number of records and maps it. */
+    private void grow(long records) throws IOException {
+        long size = HEADER_BYTES + records * RECORD_BYTES;
+        if (channel.size() < size) {
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        }
+        remap(size);
+    }
+
+    private void remap(long size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /** Flushes appended runs to the disk. */
+    public synchronized void force() {
+        if (map != null) {
+            map.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RunStore <file>");
+            System.exit(2);
+        }
+        try (RunStore store = open(Path.of(args[0]))) {
+            System.out.println(store.size() + " runs");
+            System.out.println("Best runs:");
+            for (Run run : store.top(10)) {
+                System.out.println("  " + run);
+            }
+            List<Run> today = store.runsOn(LocalDate.now(), ZoneId.systemDefault());
+            System.out.println("Today: " + today.size() + " runs, best "
+                    + store.bestOn(LocalDate.now(), ZoneId.systemDefault()));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between GameServer and its clients.
+ *
+ * Client to server: single bytes; FLAP makes the session's bird flap on the
+ * next tick. Anything else is ignored.
+ *
+ * Server to client: one message per tick, starting with a flags byte:
+ *
+ *   flags (1 byte, see the constants below),
+ *   if RESET: seed (8 bytes, big-endian); a new game starts and the bird
+ *     y below is relative to 0,
+ *   bird y change in 1/16 px as a zigzag LEB128 varint,
+ *   if NEW_PIPE: gap y of the pipe added on the right, as a varint
+ *
+ * An idle tick is 2 bytes. The first message of a connection is a RESET.
+ * Since the simulation is deterministic, the seed and the flaps are enough
+ * to rebuild the whole world; the rest lets clients draw without simulating.
+ */
+public final class ServerProtocol {
+    public static final int DEFAULT_PORT = 7777;
+
+    // Client to server
+    public static final byte FLAP = 1;
+
+    // Flags of a server message
+    public static final int FLAPPED = 1;
+    public static final int SCORED = 2;
+    public static final int DIED = 4;
+    public static final int NEW_PIPE = 8;
+    public static final int RESET = 16;
+
+    /** Largest message: flags, seed, and two 10-byte varints. */
+    public static final int MAX_MESSAGE_BYTES = 1 + 8 + 10 + 10;
+
+    // Bird y is sent in fixed point with this many fractional bits
+    public static final int Y_FRACTION_BITS = 4;
+
+    private ServerProtocol() {}
+
+    public static int toFixed(double y) {
+        return (int) Math.round(y * (1 << Y_FRACTION_BITS));
+    }
+
+    public static double fromFixed(int y) {
+        return (double) y / (1 << Y_FRACTION_BITS);
+    }
+
+    public static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static void putZigZag(ByteBuffer out, long value) {
+        putVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long getZigZag(ByteBuffer in) {
+        long value = Replay.readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Whether a whole message starts at the buffer's position, so a reader
+     * can stop at a message split across two reads.
+     */
+    public static boolean hasMessage(ByteBuffer in) {
+        ByteBuffer probe = in.duplicate();
+        try {
+            int flags = probe.get();
+            if ((flags & RESET) != 0) {
+                probe.getLong();
+            }
+            Replay.readVarLong(probe);
+            if ((flags & NEW_PIPE) != 0) {
+                Replay.readVarLong(probe);
+            }
+            return true;
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+}
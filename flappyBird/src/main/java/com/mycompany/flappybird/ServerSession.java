@@ -0,0 +1,144 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One client's game on the server: its own seeded GameWorld, the flaps the
+ * selector thread queued for it, and the bytes not yet written to its
+ * socket. Everything except the input queue and the closed flag belongs to
+ * the shard thread that ticks it. Games restart by themselves after a death.
+ */
+public class ServerSession implements GameWorld.Listener {
+    private static final int OUTPUT_BYTES = 4096;
+
+    private final SocketChannel channel;
+    private final GameWorld world;
+    private final InputQueue input = new InputQueue(16);
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BYTES);
+    private volatile boolean closed;
+    private boolean overflowed;
+
+    // Delta state: what the client has been told so far
+    private int sentY;
+    private long sentGaps;
+    private int flags;
+
+    public ServerSession(SocketChannel channel, long seed) {
+        this.channel = channel;
+        world = new GameWorld(seed);
+        world.setListener(this);
+        world.start();
+        flags = ServerProtocol.RESET;
+    }
+
+    /** Called by the selector thread when the client sent a flap. */
+    public void offerFlap(long nanoTime) {
+        input.offer(InputQueue.FLAP, nanoTime);
+    }
+
+    /**
+     * Steps the game once and queues and sends the resulting message.
+     * Returns false if the session is closed and should be dropped.
+     */
+    public boolean tick() {
+        if (closed) {
+            return false;
+        }
+        while (input.hasNext()) {
+            if (input.peekType() == InputQueue.FLAP) {
+                world.flap();
+            }
+            input.remove();
+        }
+        world.tick();
+        if (output.remaining() < ServerProtocol.MAX_MESSAGE_BYTES) {
+            // The client stopped reading; don't buffer without bound
+            overflowed = true;
+            close();
+            return false;
+        }
+        writeMessage();
+        if (world.isGameOver()) {
+            world.reset();
+            world.start();
+            flags = ServerProtocol.RESET;
+        }
+        return flush();
+    }
+
+    private void writeMessage() {
+        PipeField pipes = world.getPipes();
+        boolean newPipe = pipes.getGapsDrawn() != sentGaps && (flags & ServerProtocol.RESET) == 0;
+        int message = flags | (newPipe ? ServerProtocol.NEW_PIPE : 0);
+        output.put((byte) message);
+        if ((message & ServerProtocol.RESET) != 0) {
+            output.putLong(world.getSeed());
+            sentY = 0;
+        }
+        int y = ServerProtocol.toFixed(world.getBird().getY());
+        ServerProtocol.putZigZag(output, y - sentY);
+        sentY = y;
+        if (newPipe) {
+            ServerProtocol.putVarLong(output, pipes.getTopPipeHeight(pipes.size() - 1));
+        }
+        sentGaps = pipes.getGapsDrawn();
+        flags = 0;
+    }
+
+    private boolean flush() {
+        output.flip();
+        try {
+            channel.write(output);
+        } catch (IOException e) {
+            output.clear();
+            close();
+            return false;
+        }
+        output.compact();
+        return true;
+    }
+
+    @Override
+    public void onFlap() {
+        flags |= ServerProtocol.FLAPPED;
+    }
+
+    @Override
+    public void onScore(int score) {
+        flags |= ServerProtocol.SCORED;
+    }
+
+    @Override
+    public void onDeath(boolean hitPipe) {
+        flags |= ServerProtocol.DIED;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /** Whether the session was closed because its client fell behind. */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+}
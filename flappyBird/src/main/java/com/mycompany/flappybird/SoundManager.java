@@ -5,22 +5,26 @@ package com.mycompany.flappybird;
  * @author tayog
  */
 
-import javax.sound.sampled.*;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Plays the game's sound effects through one shared AudioMixer. Sounds are
+ * decoded to PCM when StartupLoader loads them; playing one only queues a
+ * command for the mixer thread. There is no background track in the assets,
+ * so the background music calls do nothing unless one is loaded as
+ * "background".
+ */
 public class SoundManager {
-    private static final Map<String, Clip> soundClips = new HashMap<>();
-    private static Clip backgroundMusic;
+    private static final Map<String, AudioMixer.Sound> sounds = new ConcurrentHashMap<>();
+    private static final AudioMixer mixer = new AudioMixer();
+    private static volatile boolean backgroundMusicPlaying;
 
     static {
-        loadSound("background", "/assets/sounds/background.wav");
-        loadSound("flap", "/assets/sounds/flap.wav");
-        loadSound("die", "/assets/sounds/die.wav");
-        loadSound("point", "/assets/sounds/point.wav");
-        loadSound("hit", "/assets/sounds/hit.wav");
+        mixer.start();
     }
 
     public static void loadSound(String name, String path) {
@@ -30,43 +34,44 @@ public class SoundManager {
                 System.err.println("Sound file not found: " + path);
                 return;
             }
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(url);
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioIn);
-            soundClips.put(name, clip);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+            sounds.put(name, AudioMixer.decode(name, url));
+        } catch (UnsupportedAudioFileException | IOException e) {
             System.err.println("Error loading sound: " + name);
             e.printStackTrace();
         }
     }
 
     public static void playSound(String name) {
-        Clip clip = soundClips.get(name);
-        if (clip != null) {
-            try {
-                if (clip.isRunning()) {
-                    clip.stop();
-                }
-                clip.setFramePosition(0);
-                clip.start();
-            } catch (Exception e) {
-                System.err.println("Error playing sound: " + name);
-            }
+        AudioMixer.Sound sound = sounds.get(name);
+        if (sound != null) {
+            mixer.play(sound, GameLoop.currentTick());
         }
     }
 
     public static void startBackgroundMusic() {
-        if (backgroundMusic == null) {
-            backgroundMusic = soundClips.get("background");
-        }
-        if (backgroundMusic != null && !backgroundMusic.isRunning()) {
-            backgroundMusic.loop(Clip.LOOP_CONTINUOUSLY);
+        AudioMixer.Sound music = sounds.get("background");
+        if (music != null && !backgroundMusicPlaying) {
+            backgroundMusicPlaying = true;
+            mixer.loop(music);
         }
     }
 
     public static void stopBackgroundMusic() {
-        if (backgroundMusic != null && backgroundMusic.isRunning()) {
-            backgroundMusic.stop();
+        AudioMixer.Sound music = sounds.get("background");
+        if (music != null && backgroundMusicPlaying) {
+            backgroundMusicPlaying = false;
+            mixer.stop(music);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Prints how long plays took to reach the audio line and starts a new
+     * measurement window.
+     */
+    public static void reportStats() {
+        System.out.println(mixer.getPlayLatency() + (mixer.isRunning() ? "" : " (no audio line)")
+                + ", coalesced plays=" + mixer.getCoalescedPlays()
+                + ", dropped commands=" + mixer.getDroppedCommands());
+        mixer.getPlayLatency().reset();
+    }
+}
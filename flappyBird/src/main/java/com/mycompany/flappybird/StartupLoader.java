@@ -0,0 +1,144 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads every image, font and sound the game uses exactly once, in parallel
+ * on a small worker pool, while the window already shows a loading screen.
+ * Panels created afterwards only hit the caches. Prints how long each asset
+ * took and how long it took to reach the first frame of each screen.
+ */
+public class StartupLoader {
+    static final String FONT_PATH = "/assets/fonts/pixel-font.ttf";
+    private static final String[] IMAGE_PATHS = {
+        "/assets/images/background.png",
+        "/assets/images/backgroundNight.png",
+        "/assets/images/bird.png",
+        "/assets/images/ground.png",
+        "/assets/images/groundNight.png",
+        "/assets/images/logo.png",
+        "/assets/images/pipe_bottom.png",
+        "/assets/images/pipe_top.png",
+    };
+    private static final String[] SOUND_NAMES = {"flap", "die", "point", "hit"};
+
+    // When main started, for time-to-first-frame
+    private static final long startNanos = System.nanoTime();
+    private static final Set<String> framedScreens = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Long> taskTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile int taskCount;
+    private volatile long wallNanos;
+
+    /**
+     * Starts loading on a worker pool. onProgress runs on a worker thread
+     * after each asset. The returned future completes once everything has
+     * been tried; assets that fail to load are reported and left out.
+     */
+    public CompletableFuture<Void> start(Runnable onProgress) {
+        List<String> names = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (String path : IMAGE_PATHS) {
+            names.add(path);
+            tasks.add(() -> AssetCache.getImage(path));
+        }
+        names.add(FONT_PATH);
+        tasks.add(() -> AssetCache.getFont(FONT_PATH));
+        for (String sound : SOUND_NAMES) {
+            names.add("/assets/sounds/" + sound + ".wav");
+            tasks.add(() -> SoundManager.loadSound(sound, "/assets/sounds/" + sound + ".wav"));
+        }
+        // Derived assets; these wait on their source image inside AssetCache if needed
+        names.add("bird sprites");
+        tasks.add(Bird::loadSpriteSheet);
+        names.add("pipe sprites");
+        tasks.add(Pipe::loadImages);
+        names.add("backgrounds");
+        tasks.add(Background::new);
+        taskCount = tasks.size();
+
+        int threads = Math.max(2, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "asset-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            String name = names.get(i);
+            Runnable task = tasks.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                long taskStart = System.nanoTime();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error loading " + name);
+                    e.printStackTrace();
+                }
+                taskTimes.put(name, System.nanoTime() - taskStart);
+                completed.incrementAndGet();
+                onProgress.run();
+            }, pool);
+        }
+        return CompletableFuture.allOf(futures).whenComplete((ignored, error) -> {
+            wallNanos = System.nanoTime() - start;
+            pool.shutdown();
+        });
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Prints every asset's load time, slowest first, and the wall time of the
+     * whole preload.
+     */
+    public void printReport() {
+        System.out.println("Startup loading:");
+        long sum = 0;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(taskTimes.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        for (Map.Entry<String, Long> entry : entries) {
+            sum += entry.getValue();
+            System.out.printf("  %-36s %8.2f ms%n", entry.getKey(), entry.getValue() / 1_000_000.0);
+        }
+        System.out.printf("  %d assets, %.2f ms of work in %.2f ms wall time%n",
+                entries.size(), sum / 1_000_000.0, wallNanos / 1_000_000.0);
+    }
+
+    /**
+     * Called by a screen every time it renders; reports time to its first
+     * frame, counted from main and from JVM start.
+     */
+    public static void markFrame(String screen) {
+        if (framedScreens.contains(screen) || !framedScreens.add(screen)) {
+            return;
+        }
+        System.out.printf("First frame of %s after %.1f ms (JVM uptime %d ms)%n", screen,
+                (System.nanoTime() - startNanos) / 1_000_000.0,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
@@ -0,0 +1,209 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Pre-renders HUD text so drawing it each frame is a few blits. Static strings
+ * become Labels (text and shadow baked into one bitmap) and numbers are drawn
+ * from a Digits atlas. Derived fonts are cached per size. Nothing here
+ * allocates once the labels and atlases have been created.
+ */
+public class TextRenderer {
+    private final Font baseFont;
+    private float[] sizes = new float[0];
+    private Font[] fonts = new Font[0];
+
+    public TextRenderer(Font baseFont) {
+        this.baseFont = baseFont;
+    }
+
+    /**
+     * Returns the base font derived to the given size, deriving each size
+     * only once.
+     */
+    public Font getFont(float size) {
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] == size) {
+                return fonts[i];
+            }
+        }
+        Font font = baseFont.deriveFont(size);
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        fonts = Arrays.copyOf(fonts, fonts.length + 1);
+        sizes[sizes.length - 1] = size;
+        fonts[fonts.length - 1] = font;
+        return font;
+    }
+
+    /**
+     * Renders text with an optional drop shadow (shadow may be null) into a
+     * bitmap, matching drawString with text antialiasing off.
+     */
+    public Label createLabel(String text, float size, Color color, Color shadow, int shadowOffset) {
+        Font font = getFont(size);
+        FontMetrics metrics = metricsFor(font);
+        int offset = shadow != null ? shadowOffset : 0;
+        BufferedImage image = createTextImage(metrics.stringWidth(text) + offset,
+                metrics.getAscent() + metrics.getDescent() + offset);
+        Graphics2D g2d = createTextGraphics(image, font);
+        if (shadow != null) {
+            g2d.setColor(shadow);
+            g2d.drawString(text, offset, metrics.getAscent() + offset);
+        }
+        g2d.setColor(color);
+        g2d.drawString(text, 0, metrics.getAscent());
+        g2d.dispose();
+        return new Label(image, metrics.stringWidth(text), metrics.getAscent());
+    }
+
+    /**
+     * Renders the digits 0-9 (and their shadows, if shadow is not null) for
+     * drawing numbers without building strings.
+     */
+    public Digits createDigits(float size, Color color, Color shadow, int shadowOffset) {
+        Font font = getFont(size);
+        FontMetrics metrics = metricsFor(font);
+        BufferedImage[] glyphs = new BufferedImage[10];
+        BufferedImage[] shadows = shadow != null ? new BufferedImage[10] : null;
+        int[] advances = new int[10];
+        for (int d = 0; d < 10; d++) {
+            String digit = Character.toString((char) ('0' + d));
+            advances[d] = metrics.stringWidth(digit);
+            glyphs[d] = renderGlyph(digit, font, metrics, color);
+            if (shadow != null) {
+                shadows[d] = renderGlyph(digit, font, metrics, shadow);
+            }
+        }
+        return new Digits(glyphs, shadows, advances, metrics.getAscent(), shadow != null ? shadowOffset : 0);
+    }
+
+    private BufferedImage renderGlyph(String digit, Font font, FontMetrics metrics, Color color) {
+        // Leave room for glyphs that overhang their advance
+        BufferedImage image = createTextImage(metrics.getMaxAdvance(), metrics.getAscent() + metrics.getDescent());
+        Graphics2D g2d = createTextGraphics(image, font);
+        g2d.setColor(color);
+        g2d.drawString(digit, 0, metrics.getAscent());
+        g2d.dispose();
+        return image;
+    }
+
+    private static BufferedImage createTextImage(int width, int height) {
+        return AssetCache.createCompatibleImage(Math.max(1, width), Math.max(1, height), Transparency.TRANSLUCENT);
+    }
+
+    private static Graphics2D createTextGraphics(BufferedImage image, Font font) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g2d.setFont(font);
+        return g2d;
+    }
+
+    private static FontMetrics metricsFor(Font font) {
+        Graphics2D g2d = createTextGraphics(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), font);
+        FontMetrics metrics = g2d.getFontMetrics();
+        g2d.dispose();
+        return metrics;
+    }
+
+    /**
+     * A pre-rendered piece of text.
+     */
+    public static class Label {
+        private final BufferedImage image;
+        private final int textWidth;
+        private final int ascent;
+
+        private Label(BufferedImage image, int textWidth, int ascent) {
+            this.image = image;
+            this.textWidth = textWidth;
+            this.ascent = ascent;
+        }
+
+        /** Width of the text itself, as FontMetrics.stringWidth would report. */
+        public int getWidth() {
+            return textWidth;
+        }
+
+        /** Draws the text with its baseline at baselineY, like drawString. */
+        public void draw(Graphics g, int x, int baselineY) {
+            g.drawImage(image, x, baselineY - ascent, null);
+        }
+
+        public void drawCentered(Graphics g, int areaWidth, int baselineY) {
+            draw(g, (areaWidth - textWidth) / 2, baselineY);
+        }
+    }
+
+    /**
+     * A digit atlas for drawing non-negative numbers. Shadows are drawn in a
+     * first pass and digits in a second, exactly as two drawString calls would.
+     * Drawing uses an internal scratch buffer, so use an instance from one
+     * thread at a time.
+     */
+    public static class Digits {
+        private final BufferedImage[] glyphs;
+        private final BufferedImage[] shadows;
+        private final int[] advances;
+        private final int ascent;
+        private final int shadowOffset;
+        private final int[] scratch = new int[10];
+
+        private Digits(BufferedImage[] glyphs, BufferedImage[] shadows, int[] advances, int ascent, int shadowOffset) {
+            this.glyphs = glyphs;
+            this.shadows = shadows;
+            this.advances = advances;
+            this.ascent = ascent;
+            this.shadowOffset = shadowOffset;
+        }
+
+        private int split(int value) {
+            int count = 0;
+            do {
+                scratch[count++] = value % 10;
+                value /= 10;
+            } while (value > 0);
+            return count;
+        }
+
+        public int measure(int value) {
+            int width = 0;
+            for (int i = split(Math.max(0, value)) - 1; i >= 0; i--) {
+                width += advances[scratch[i]];
+            }
+            return width;
+        }
+
+        public void draw(Graphics g, int value, int x, int baselineY) {
+            int count = split(Math.max(0, value));
+            int top = baselineY - ascent;
+            if (shadows != null) {
+                int shadowX = x + shadowOffset;
+                for (int i = count - 1; i >= 0; i--) {
+                    g.drawImage(shadows[scratch[i]], shadowX, top + shadowOffset, null);
+                    shadowX += advances[scratch[i]];
+                }
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                g.drawImage(glyphs[scratch[i]], x, top, null);
+                x += advances[scratch[i]];
+            }
+        }
+
+        public void drawCentered(Graphics g, int value, int areaWidth, int baselineY) {
+            draw(g, value, (areaWidth - measure(value)) / 2, baselineY);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Headless neuroevolution trainer for Autopilot. Every generation, the whole
+ * population flies the same seeded pipe courses in parallel on all cores.
+ * Fitness is the distance flown plus a bonus per pipe passed. The best agents
+ * survive unchanged and the rest of the next generation is bred from them by
+ * crossover and mutation. The best agent found is saved after every
+ * generation.
+ *
+ *   java -cp target/classes com.mycompany.flappybird.Trainer
+ *        [--population 2000] [--generations 50] [--max-ticks 20000]
+ *        [--courses 3] [--seed 1] [--out autopilot.txt]
+ *
+ * Play with a trained agent: -Dflappybird.autopilot=autopilot.txt
+ */
+public class Trainer {
+    private static final double ELITE_FRACTION = 0.05;
+    private static final double PARENT_FRACTION = 0.25;
+    private static final double MUTATION_RATE = 0.2;
+    private static final double MUTATION_STRENGTH = 0.5;
+    private static final double SCORE_BONUS = GameWorld.PIPE_SPACING;
+
+    private final int population;
+    private final int maxTicks;
+    private final int courses;
+    private final LongAdder simulatedTicks = new LongAdder();
+
+    public Trainer(int population, int maxTicks, int courses) {
+        this.population = population;
+        this.maxTicks = maxTicks;
+        this.courses = courses;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int population = 2000;
+        int generations = 50;
+        int maxTicks = 20_000;
+        int courses = 3;
+        long seed = 1;
+        Path out = Path.of("autopilot.txt");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--population" -> population = Integer.parseInt(args[i + 1]);
+                case "--generations" -> generations = Integer.parseInt(args[i + 1]);
+                case "--max-ticks" -> maxTicks = Integer.parseInt(args[i + 1]);
+                case "--courses" -> courses = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--out" -> out = Path.of(args[i + 1]);
+                default -> System.err.println("Unknown option: " + args[i]);
+            }
+        }
+
+        Trainer trainer = new Trainer(population, maxTicks, courses);
+        trainer.train(generations, new Random(seed), out);
+        System.out.println("Best autopilot saved to " + out.toAbsolutePath());
+    }
+
+    /**
+     * Runs the given number of generations and returns the best agent of the
+     * last one, saving the best agent to the file after every generation.
+     */
+    public Autopilot train(int generations, Random rand, Path out) throws IOException {
+        Autopilot[] agents = new Autopilot[population];
+        for (int i = 0; i < population; i++) {
+            agents[i] = Autopilot.random(rand);
+        }
+
+        Autopilot best = null;
+        for (int generation = 1; generation <= generations; generation++) {
+            long[] courseSeeds = rand.longs(courses).toArray();
+            Autopilot[] evaluated = agents;
+
+            simulatedTicks.reset();
+            long start = System.nanoTime();
+            double[] fitness = IntStream.range(0, population).parallel()
+                    .mapToDouble(i -> evaluate(evaluated[i], courseSeeds))
+                    .toArray();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Integer[] ranking = IntStream.range(0, population).boxed().toArray(Integer[]::new);
+            Arrays.sort(ranking, Comparator.comparingDouble((Integer i) -> fitness[i]).reversed());
+            best = agents[ranking[0]];
+            best.save(out);
+
+            double birds = (double) population * courses;
+            System.out.printf("generation %3d  best %10.0f  median %10.0f  %,.0f birds/s  %,.0f ticks/s  %.2f s%n",
+                    generation, fitness[ranking[0]], fitness[ranking[population / 2]],
+                    birds / seconds, simulatedTicks.sum() / seconds, seconds);
+
+            agents = breed(agents, ranking, rand);
+        }
+        return best;
+    }
+
+    private Autopilot[] breed(Autopilot[] agents, Integer[] ranking, Random rand) {
+        int elites = Math.max(1, (int) (population * ELITE_FRACTION));
+        int parents = Math.max(elites, (int) (population * PARENT_FRACTION));
+        Autopilot[] next = new Autopilot[population];
+        for (int i = 0; i < elites; i++) {
+            next[i] = agents[ranking[i]];
+        }
+        for (int i = elites; i < population; i++) {
+            Autopilot mother = agents[ranking[rand.nextInt(parents)]];
+            Autopilot father = agents[ranking[rand.nextInt(parents)]];
+            next[i] = mother.crossover(father, rand).mutate(rand, MUTATION_RATE, MUTATION_STRENGTH);
+        }
+        return next;
+    }
+
+    /**
+     * Average fitness of the agent over the given courses.
+     */
+    double evaluate(Autopilot agent, long[] courseSeeds) {
+        double total = 0;
+        for (long courseSeed : courseSeeds) {
+            total += fly(agent, new GameWorld(courseSeed));
+        }
+        return total / courseSeeds.length;
+    }
+
+    private double fly(Autopilot agent, GameWorld world) {
+        world.start();
+        int ticks = 0;
+        while (!world.isGameOver() && ticks < maxTicks) {
+            if (agent.shouldFlap(world)) {
+                world.flap();
+            }
+            world.tick();
+            ticks++;
+        }
+        simulatedTicks.add(ticks);
+        return (double) ticks * Pipe.SPEED + world.getScore() * SCORE_BONUS;
+    }
+}
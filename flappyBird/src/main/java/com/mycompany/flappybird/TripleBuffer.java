@@ -0,0 +1,100 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hands the latest state from one writer thread to one reader thread without
+ * locks or allocation. There are three slots: the writer fills the back one
+ * and swaps it with the shared middle one, and the reader swaps the middle
+ * one into the front whenever a newer state was published. Neither side ever
+ * waits for the other.
+ *
+ * A state replaced before the reader saw it counts as dropped; a read that
+ * finds nothing new and returns the previous state again counts as
+ * duplicated.
+ */
+public class TripleBuffer<T> {
+    // Set in middle when the slot it names has not been read yet
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] slots = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // writer only
+    private int front = 2; // reader only
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    /**
+     * Called by the writer only. The slot to fill before the next publish();
+     * it holds an older state, which publish() just returned true for if it
+     * was never read.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) slots[back];
+    }
+
+    /**
+     * Called by the writer only. Makes the back slot the latest state and
+     * returns whether the state it replaced was dropped unread.
+     */
+    public boolean publish() {
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        published.incrementAndGet();
+        if ((previous & FRESH) != 0) {
+            dropped.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by the reader only. Returns the latest published state, which
+     * stays untouched by the writer until the next acquire().
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        } else {
+            duplicated.incrementAndGet();
+        }
+        return (T) slots[front];
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getDuplicated() {
+        return duplicated.get();
+    }
+
+    /** Starts a new measurement window for the counters. */
+    public void resetStats() {
+        published.set(0);
+        dropped.set(0);
+        duplicated.set(0);
+    }
+}
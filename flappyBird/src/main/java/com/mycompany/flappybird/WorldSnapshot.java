@@ -0,0 +1,65 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+/**
+ * Everything GamePanel draws, copied from the simulation at the end of a
+ * tick. Snapshots are pooled in a TripleBuffer and refilled in place, so
+ * publishing one every tick allocates nothing.
+ */
+public class WorldSnapshot {
+    private final GameWorld world;
+    private final Ground ground;
+    private int fadeStep;
+    private long tickNanos;
+    private long inputTime;
+    private long sequence;
+
+    public WorldSnapshot(GameWorld world, Ground ground) {
+        this.world = world.snapshot();
+        this.ground = ground.snapshot();
+    }
+
+    /**
+     * Refills this snapshot. inputTime is when the oldest input first shown
+     * by it was pressed, or 0 if there is none.
+     */
+    public void copyFrom(GameWorld world, Ground ground, Background background,
+            long tickNanos, long inputTime, long sequence) {
+        this.world.copyStateFrom(world);
+        this.ground.copyFrom(ground);
+        this.fadeStep = background.getFadeStep();
+        this.tickNanos = tickNanos;
+        this.inputTime = inputTime;
+        this.sequence = sequence;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public Ground getGround() {
+        return ground;
+    }
+
+    public int getFadeStep() {
+        return fadeStep;
+    }
+
+    /** When the tick this was taken after was due, see GameLoop.getTickNanos(). */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public long getInputTime() {
+        return inputTime;
+    }
+
+    /** Increases with every snapshot published. */
+    public long getSequence() {
+        return sequence;
+    }
+}
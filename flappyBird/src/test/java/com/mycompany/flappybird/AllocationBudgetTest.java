@@ -0,0 +1,70 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that stepping the simulation allocates nothing. Plays many games
+ * headlessly with a simple scripted pilot and measures the bytes the test
+ * thread allocated once the tick loop has been compiled.
+ */
+class AllocationBudgetTest {
+    private static final int WARMUP_TICKS = 2_000_000;
+    private static final int MEASURED_TICKS = 5_000_000;
+    // The pilot stops flapping at this score so game over and reset run too
+    private static final int SCORE_PER_GAME = 50;
+
+    @Test
+    void tickAllocatesNothing() {
+        assertNoAllocation(false);
+    }
+
+    @Test
+    void tickAllocatesNothingWithPixelPerfectCollisions() {
+        assertNoAllocation(true);
+    }
+
+    private static void assertNoAllocation(boolean pixelPerfect) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameWorld world = new GameWorld();
+        world.start();
+        world.setPixelPerfectCollisions(pixelPerfect);
+
+        run(world, WARMUP_TICKS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long games = run(world, MEASURED_TICKS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(0, allocated, allocated / (double) MEASURED_TICKS + " bytes per tick over "
+                + MEASURED_TICKS + " ticks and " + games + " games");
+    }
+
+    /**
+     * Steps the world for the given number of ticks, flying with the
+     * scripted pilot until it has scored SCORE_PER_GAME. Returns the games
+     * played.
+     */
+    private static long run(GameWorld world, int ticks) {
+        long games = 0;
+        for (int i = 0; i < ticks; i++) {
+            if (world.isGameOver()) {
+                world.reset();
+                world.start();
+                games++;
+            }
+            if (world.getScore() < SCORE_PER_GAME && ScriptedPilot.wantsToFlap(world)) {
+                world.flap();
+            }
+            world.tick();
+        }
+        return games;
+    }
+}
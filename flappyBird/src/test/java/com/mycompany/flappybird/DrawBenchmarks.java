@@ -0,0 +1,124 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of drawing each sprite scaled (or rotated) on every call,
+ * as the game used to, against a 1:1 blit of a copy prepared up front.
+ * Draws into an offscreen image, so it runs headless:
+ *
+ *   mvn -Pbenchmarks -DskipTests test -Djmh.include=DrawBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmarks {
+    private static final double TILT = Math.toRadians(21);
+
+    @Param({"pipe", "background", "logo", "bird", "birdTilt"})
+    public String sprite;
+
+    private Graphics2D g2d;
+    private BufferedImage source;
+    private int width;
+    private int height;
+    private BufferedImage prepared;
+    private boolean tilt;
+
+    @Setup
+    public void setUp() {
+        BufferedImage target = AssetCache.createCompatibleImage(GameWorld.WIDTH, GameWorld.HEIGHT, Transparency.OPAQUE);
+        g2d = target.createGraphics();
+        switch (sprite) {
+            case "pipe" -> sprite("/assets/images/pipe_top.png", Pipe.PIPE_WIDTH, Pipe.PIPE_HEIGHT);
+            case "background" -> sprite("/assets/images/backgroundNight.png", GameWorld.WIDTH, GameWorld.HEIGHT);
+            case "logo" -> sprite("/assets/images/logo.png", 280, 75);
+            case "bird" -> {
+                source = birdFrame();
+                prepared = AssetCache.scale(source, width, height);
+            }
+            case "birdTilt" -> {
+                // Rotating the Graphics2D per draw against a frame rotated up front
+                tilt = true;
+                source = AssetCache.scale(birdFrame(), width, height);
+                int size = (int) Math.ceil(Math.hypot(width, height));
+                prepared = AssetCache.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+                Graphics2D rg = prepared.createGraphics();
+                rg.rotate(TILT, size / 2, size / 2);
+                rg.drawImage(source, size / 2 - width / 2, size / 2 - height / 2, null);
+                rg.dispose();
+            }
+            default -> throw new IllegalArgumentException("Unknown sprite " + sprite);
+        }
+    }
+
+    private void sprite(String path, int width, int height) {
+        source = require(AssetCache.getImage(path), path);
+        prepared = require(AssetCache.getScaledImage(path, width, height), path);
+        this.width = width;
+        this.height = height;
+    }
+
+    /** The first frame of the bird sheet, as loaded; sets its drawn size. */
+    private BufferedImage birdFrame() {
+        BufferedImage sheet = require(AssetCache.getImage("/assets/images/bird.png"), "bird.png");
+        width = Bird.BIRD_WIDTH;
+        height = Bird.BIRD_HEIGHT;
+        return sheet.getSubimage(0, 0, 92, 64);
+    }
+
+    private static BufferedImage require(BufferedImage image, String path) {
+        if (image == null) {
+            throw new IllegalStateException("Image missing: " + path);
+        }
+        return image;
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public boolean transformed() {
+        if (tilt) {
+            AffineTransform original = g2d.getTransform();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.rotate(TILT, 10 + width / 2, 10 + height / 2);
+            boolean done = g2d.drawImage(source, 10, 10, null);
+            g2d.setTransform(original);
+            return done;
+        }
+        return g2d.drawImage(source, 0, 0, width, height, null);
+    }
+
+    @Benchmark
+    public boolean prepared() {
+        return g2d.drawImage(prepared, 0, 0, null);
+    }
+}
@@ -0,0 +1,209 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the hot paths: Bird.update, the game tick, collision
+ * checks, Ground.update, rendering a full GamePanel frame into an offscreen
+ * image, and appending to and querying the run store. Run with the gc
+ * profiler for bytes allocated per operation:
+ *
+ *   mvn -Pbenchmarks -DskipTests test
+ *
+ * benchmarks/baseline.txt holds the results to diff against in review.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dflappybird.render=swing"})
+public class GameBenchmarks {
+    // Ticks replayed per world.tick invocation
+    private static final int TICKS = 4096;
+
+    @State(Scope.Thread)
+    public static class BirdState {
+        Bird bird;
+        int updates;
+
+        @Setup
+        public void setUp() {
+            bird = new Bird(GameWorld.WIDTH, GameWorld.HEIGHT);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TickState {
+        GameWorld start;
+        GameWorld world;
+        boolean[] flaps;
+
+        /**
+         * Records the scripted pilot's flaps once, so every invocation
+         * replays the same game from the same start and the bird never dies.
+         */
+        @Setup
+        public void setUp() {
+            start = new GameWorld(1);
+            start.start();
+            world = start.snapshot();
+            flaps = new boolean[TICKS];
+            for (int i = 0; i < TICKS; i++) {
+                flaps[i] = ScriptedPilot.flyTick(world);
+            }
+            if (world.isGameOver()) {
+                throw new IllegalStateException("Benchmark pilot died on tick " + world.getTickCount());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CollisionState {
+        GameWorld world;
+
+        /** Flies the bird into the first pipe's gap so the pipe tests run too. */
+        @Setup
+        public void setUp() {
+            world = new GameWorld(1);
+            world.start();
+            while (world.getPipes().getX(0) > world.getBird().getX()) {
+                ScriptedPilot.flyTick(world);
+            }
+            if (world.isGameOver()) {
+                throw new IllegalStateException("Benchmark pilot died before the first pipe");
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GroundState {
+        Ground ground = new Ground(GameWorld.WIDTH, GameWorld.HEIGHT);
+    }
+
+    @State(Scope.Thread)
+    public static class RenderState {
+        GamePanel panel;
+        Graphics2D g2d;
+
+        @Setup
+        public void setUp() {
+            panel = new GamePanel(null);
+            panel.setSize(GameWorld.WIDTH, GameWorld.HEIGHT);
+            BufferedImage frame = AssetCache.createCompatibleImage(GameWorld.WIDTH, GameWorld.HEIGHT, Transparency.OPAQUE);
+            g2d = frame.createGraphics();
+        }
+
+        @TearDown
+        public void tearDown() {
+            g2d.dispose();
+            panel.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RunStoreState {
+        Path file;
+        RunStore store;
+        int runs;
+
+        @Setup
+        public void setUp() throws IOException {
+            file = Files.createTempFile("flappybird-runs", ".fbs");
+            Files.delete(file);
+            store = RunStore.open(file);
+            // Something to rank for top(10) even when it runs on its own
+            for (int i = 0; i < 1000; i++) {
+                append();
+            }
+        }
+
+        RunStore.Run append() throws IOException {
+            runs++;
+            return store.append(runs * 7919 % 1000, runs, runs);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            store.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public double birdUpdate(BirdState state) {
+        // Keep the bird in the air instead of resting on the floor clamp
+        if (++state.updates % 20 == 0) {
+            state.bird.jump();
+        }
+        state.bird.update();
+        return state.bird.getY();
+    }
+
+    /** Time per tick; restoring the start is amortized over TICKS ticks. */
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public long worldTick(TickState state) {
+        GameWorld world = state.world;
+        world.copyFrom(state.start);
+        boolean[] flaps = state.flaps;
+        for (int i = 0; i < TICKS; i++) {
+            if (flaps[i]) {
+                world.flap();
+            }
+            world.tick();
+        }
+        return world.getTickCount();
+    }
+
+    @Benchmark
+    public boolean checkCollisions(CollisionState state) {
+        state.world.checkCollisions();
+        return state.world.isGameOver();
+    }
+
+    @Benchmark
+    public int groundUpdate(GroundState state) {
+        state.ground.update();
+        return state.ground.getY();
+    }
+
+    @Benchmark
+    public GamePanel renderFrame(RenderState state) {
+        state.panel.renderFrame(state.g2d);
+        return state.panel;
+    }
+
+    @Benchmark
+    public RunStore.Run runStoreAppend(RunStoreState state) throws IOException {
+        return state.append();
+    }
+
+    @Benchmark
+    public List<RunStore.Run> runStoreTop10(RunStoreState state) throws IOException {
+        return state.store.top(10);
+    }
+}
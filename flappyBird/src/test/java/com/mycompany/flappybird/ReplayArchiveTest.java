@@ -0,0 +1,94 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayArchiveTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedReplaysReadBackInOrder() throws IOException {
+        Path file = dir.resolve("replays.fbr");
+        List<Replay> written = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            long[] flaps = new long[i];
+            for (int f = 0; f < i; f++) {
+                flaps[f] = f * 17L;
+            }
+            Replay replay = new Replay(i, i % 2 == 0, i, i * 20L, flaps);
+            ReplayArchive.append(file, replay);
+            written.add(replay);
+        }
+
+        List<Replay> read = new ArrayList<>();
+        assertEquals(0, ReplayArchive.forEach(file, read::add));
+
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertArrayEquals(written.get(i).encode(), read.get(i).encode());
+        }
+    }
+
+    @Test
+    void truncatedFinalRecordIsReportedAsLeftover() throws IOException {
+        Path file = dir.resolve("replays.fbr");
+        ReplayArchive.append(file, new Replay(1, false, 0, 10, new long[] {1, 2}));
+        ReplayArchive.append(file, new Replay(2, false, 0, 10, new long[] {1, 2}));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        List<Replay> read = new ArrayList<>();
+        long leftover = ReplayArchive.forEach(file, read::add);
+
+        assertEquals(1, read.size());
+        assertTrue(leftover > 0);
+    }
+
+    @Test
+    void negativeLengthPrefixIsCorrupt() throws IOException {
+        assertCorrupt(0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 0x01, 0x02, 0x03);
+    }
+
+    @Test
+    void overlongLengthPrefixIsCorrupt() throws IOException {
+        assertCorrupt(0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] {'P', 'K', 3, 4, 0, 0});
+        assertThrows(IOException.class, () -> ReplayArchive.forEach(file, replay -> {}));
+    }
+
+    private void assertCorrupt(int... record) throws IOException {
+        Path file = dir.resolve("corrupt.fbr");
+        byte[] bytes = new byte[4 + record.length];
+        bytes[0] = 'F';
+        bytes[1] = 'B';
+        bytes[2] = 'R';
+        bytes[3] = 'A';
+        for (int i = 0; i < record.length; i++) {
+            bytes[4 + i] = (byte) record[i];
+        }
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> ReplayArchive.forEach(file, replay -> {}));
+    }
+}
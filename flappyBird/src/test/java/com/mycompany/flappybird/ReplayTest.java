@@ -0,0 +1,117 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class ReplayTest {
+    private static final long SEED = 0x0123456789ABCDEFL;
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        Replay replay = new Replay(SEED, true, 42, 123_456, new long[] {0, 0, 7, 300, 100_000});
+        ByteBuffer in = ByteBuffer.wrap(replay.encode());
+
+        Replay decoded = Replay.decode(in);
+
+        assertFalse(in.hasRemaining());
+        assertEquals(SEED, decoded.getSeed());
+        assertTrue(decoded.isPixelPerfectCollisions());
+        assertEquals(42, decoded.getScore());
+        assertEquals(123_456, decoded.getTicks());
+        assertArrayEquals(replay.encode(), decoded.encode());
+    }
+
+    @Test
+    void decodeStopsAfterOneReplay() {
+        byte[] first = new Replay(1, false, 3, 90, new long[] {5, 40}).encode();
+        byte[] second = new Replay(2, false, 0, 10, new long[0]).encode();
+        ByteBuffer in = ByteBuffer.allocate(first.length + second.length).put(first).put(second).flip();
+
+        assertEquals(1, Replay.decode(in).getSeed());
+        assertEquals(first.length, in.position());
+        assertEquals(2, Replay.decode(in).getSeed());
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        byte[] bytes = new Replay(SEED, false, 1, 2, new long[0]).encode();
+        bytes[0] = (byte) (Replay.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> Replay.decode(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void rejectsTruncatedReplay() {
+        byte[] bytes = new Replay(SEED, false, 1, 200, new long[] {10, 20, 30}).encode();
+        for (int length = 0; length < bytes.length; length++) {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 0, length);
+            assertThrows(IllegalArgumentException.class, () -> Replay.decode(in), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsNegativeFlapCount() {
+        assertCorrupt(0, 100, -1);
+    }
+
+    @Test
+    void rejectsNegativeTicks() {
+        assertCorrupt(0, -1, 0);
+    }
+
+    @Test
+    void rejectsScoreOutsideIntRange() {
+        assertCorrupt(Integer.MAX_VALUE + 1L, 100, 0);
+        assertCorrupt(-1, 100, 0);
+    }
+
+    @Test
+    void rejectsFlapTicksThatOverflow() {
+        ByteArrayOutputStream out = header(0, 100, 2);
+        Replay.writeVarLong(out, Long.MAX_VALUE);
+        Replay.writeVarLong(out, 1);
+        assertThrows(IllegalArgumentException.class, () -> Replay.decode(ByteBuffer.wrap(out.toByteArray())));
+    }
+
+    @Test
+    void rejectsOverlongVarint() {
+        ByteArrayOutputStream out = header(0, 100, 1);
+        for (int i = 0; i < 11; i++) {
+            out.write(0xFF);
+        }
+        out.write(0);
+        assertThrows(IllegalArgumentException.class, () -> Replay.decode(ByteBuffer.wrap(out.toByteArray())));
+    }
+
+    private static void assertCorrupt(long score, long ticks, long flapCount) {
+        byte[] bytes = header(score, ticks, flapCount).toByteArray();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Replay.decode(ByteBuffer.wrap(bytes)));
+        assertTrue(e.getMessage().startsWith("Corrupt replay"), e.getMessage());
+    }
+
+    /** Encodes the fields before the flaps, with any values. */
+    private static ByteArrayOutputStream header(long score, long ticks, long flapCount) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Replay.VERSION);
+        out.write(0);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (SEED >>> shift));
+        }
+        Replay.writeVarLong(out, score);
+        Replay.writeVarLong(out, ticks);
+        Replay.writeVarLong(out, flapCount);
+        return out;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mycompany.flappybird;
+
+/**
+ *
+ * @author tayog
+ */
+
+/**
+ * The simple pilot the tests and benchmarks fly with: it flaps whenever the
+ * bird is falling below the middle of the next gap. Good enough to pass any
+ * gap the game generates.
+ */
+final class ScriptedPilot {
+    private ScriptedPilot() {
+    }
+
+    static boolean wantsToFlap(GameWorld world) {
+        Bird bird = world.getBird();
+        return bird.getVelocityY() >= 0 && bird.getY() + bird.getHeight() / 2.0 > nextGapCenter(world) + 20;
+    }
+
+    /** Flaps if the pilot wants to, then ticks. Returns whether it flapped. */
+    static boolean flyTick(GameWorld world) {
+        boolean flap = wantsToFlap(world);
+        if (flap) {
+            world.flap();
+        }
+        world.tick();
+        return flap;
+    }
+
+    private static double nextGapCenter(GameWorld world) {
+        PipeField pipes = world.getPipes();
+        int next = pipes.nextPipe(world.getBird().getX());
+        return next < 0 ? GameWorld.HEIGHT / 2.0 : pipes.getTopPipeHeight(next) + Pipe.GAP / 2.0;
+    }
+}